@@ -0,0 +1,102 @@
+package com.book.bookhost.benchmark;
+
+import com.book.bookhost.BookhostApplication;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BookingRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without the web layer for benchmarks and seeds it with bookings.
+ */
+final class BenchmarkApplication {
+
+    static final int STAY_DAYS = 2;
+    static final int STRIDE_DAYS = 3;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        List<String> all = new ArrayList<>();
+        // no DB_CLOSE_DELAY: the database lives as long as the context's connection pool
+        all.add("spring.datasource.url=jdbc:h2:mem:" + databaseName);
+        all.addAll(List.of(properties));
+        return run(all);
+    }
+
+    /**
+     * Boots the {@code durable} profile on the file database in {@code directory}.
+     */
+    static ConfigurableApplicationContext startDurable(Path directory, String... properties) {
+        List<String> all = new ArrayList<>();
+        all.add("spring.profiles.active=durable");
+        all.add("bookhost.storage.directory=" + directory.toAbsolutePath());
+        all.addAll(List.of(properties));
+        return run(all);
+    }
+
+    private static ConfigurableApplicationContext run(List<String> properties) {
+        List<String> args = new ArrayList<>(List.of("spring.h2.console.enabled=false", "logging.level.root=WARN"));
+        args.addAll(properties);
+        // passed as command line arguments so they take precedence over application.yaml
+        return new SpringApplicationBuilder(BookhostApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * Seeds {@code count} back-to-back stays of {@link #STAY_DAYS} days, one every {@link #STRIDE_DAYS} days,
+     * starting tomorrow, so every third day of the property's calendar is free.
+     */
+    static List<Booking> seed(BookingRepository repository, String propertyId, int count) {
+        LocalDate first = LocalDate.now().plusDays(1);
+        List<Booking> chunk = new ArrayList<>();
+        List<Booking> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate start = first.plusDays((long) i * STRIDE_DAYS);
+            chunk.add(new Booking("Guest " + i, "guest" + i + "@bench.com", propertyId,
+                    start, start.plusDays(STAY_DAYS - 1), BookingStatus.ACTIVE));
+            if (chunk.size() == 1_000) {
+                all.addAll(repository.saveAll(chunk));
+                chunk.clear();
+            }
+        }
+        all.addAll(repository.saveAll(chunk));
+        return all;
+    }
+
+    /**
+     * Seeds {@code perProperty} back-to-back stays on each of {@code properties} properties, laid out like
+     * {@link #seed}, without keeping the saved entities.
+     */
+    static void seedProperties(BookingRepository repository, int properties, int perProperty) {
+        List<Booking> chunk = new ArrayList<>();
+        for (int i = 0; i < perProperty; i++) {
+            for (int p = 0; p < properties; p++) {
+                chunk.add(stay(p, i));
+                if (chunk.size() == 1_000) {
+                    repository.saveAll(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        repository.saveAll(chunk);
+    }
+
+    /**
+     * The {@code index}-th stay of property {@code "bench-" + property}.
+     */
+    static Booking stay(int property, long index) {
+        LocalDate start = LocalDate.now().plusDays(1 + index * STRIDE_DAYS);
+        return new Booking("Guest " + index, "guest" + index + "@bench.com", "bench-" + property,
+                start, start.plusDays(STAY_DAYS - 1), BookingStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,96 @@
+package com.book.bookhost.benchmark;
+
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.journal.MutationJournal;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launch until the application is ready with {@code bookings} bookings already stored.
+ * <p>
+ * In {@code memory} mode nothing survives a restart but the mutation journal, so the start includes replaying
+ * it into the empty in-memory database; {@code durable} mode opens the existing file database. Both then
+ * rebuild the occupancy index from the stored bookings. Each store is generated once under
+ * {@code target/bench-storage} and reused by later runs.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ColdStartBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ColdStartBenchmark {
+
+    private static final int PROPERTIES = 1_000;
+
+    @Param({"memory", "durable"})
+    public String mode;
+
+    @Param({"1000000"})
+    public int bookings;
+
+    private Path store;
+    private ConfigurableApplicationContext context;
+    private int starts;
+
+    @Setup(Level.Trial)
+    public void prepareStore() throws Exception {
+        store = Path.of("target", "bench-storage", mode + "-" + bookings).toAbsolutePath();
+        Path complete = store.resolve("complete");
+        if (Files.exists(complete)) {
+            return;
+        }
+        FileSystemUtils.deleteRecursively(store);
+        Files.createDirectories(store);
+        if (mode.equals("durable")) {
+            try (ConfigurableApplicationContext seeding = BenchmarkApplication.startDurable(store)) {
+                BenchmarkApplication.seedProperties(seeding.getBean(BookingRepository.class), PROPERTIES, bookings / PROPERTIES);
+            }
+        } else {
+            MutationJournal journal = new MutationJournal(store.toString(), DataSize.ofMegabytes(64),
+                    Duration.ofSeconds(1), Duration.ofDays(1), new SimpleMeterRegistry());
+            long id = 0;
+            for (int i = 0; i < bookings / PROPERTIES; i++) {
+                for (int p = 0; p < PROPERTIES; p++) {
+                    Booking booking = BenchmarkApplication.stay(p, i);
+                    booking.setId(++id);
+                    journal.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking));
+                }
+            }
+            journal.close();
+        }
+        Files.createFile(complete);
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext coldStart() {
+        if (mode.equals("durable")) {
+            context = BenchmarkApplication.startDurable(store);
+        } else {
+            context = BenchmarkApplication.start("coldstart" + starts++,
+                    "bookhost.journal.enabled=true", "bookhost.journal.directory=" + store);
+        }
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+}
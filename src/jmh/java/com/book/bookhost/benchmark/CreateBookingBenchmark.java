@@ -0,0 +1,64 @@
+package com.book.bookhost.benchmark;
+
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sustained {@link BookingService#createBooking} throughput from four threads, against the in-memory database
+ * and against the {@code durable} profile's file database. Requests are spread over many properties and never
+ * conflict, so every invocation commits one booking.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=CreateBookingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class CreateBookingBenchmark {
+
+    private static final int PROPERTIES = 1_000;
+
+    @Param({"memory", "durable"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (mode.equals("durable")) {
+            Path store = Path.of("target", "bench-storage", "create-booking");
+            FileSystemUtils.deleteRecursively(store);
+            context = BenchmarkApplication.startDurable(store);
+        } else {
+            context = BenchmarkApplication.start("createbooking");
+        }
+        bookingService = context.getBean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Booking createBooking() {
+        long n = sequence.getAndIncrement();
+        Booking stay = BenchmarkApplication.stay((int) (n % PROPERTIES), n / PROPERTIES);
+        return bookingService.createBooking(new BookingRequest(stay.getGuestName(), stay.getGuestEmail(),
+                stay.getPropertyId(), stay.getStartDate(), stay.getEndDate()));
+    }
+}
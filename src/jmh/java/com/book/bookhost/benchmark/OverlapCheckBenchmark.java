@@ -0,0 +1,171 @@
+package com.book.bookhost.benchmark;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.BookingConflict;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockRuleRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.util.DateUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlap checks for one property holding {@code bookings} stays, through every path the services have
+ * used: the original load-and-scan with {@link DateUtils#overlap}, the indexed range probe against H2 and
+ * the in-memory {@link AvailabilityIndex}. Every invocation probes a random single day, about a third of which
+ * are free.
+ * <p>
+ * {@code dateUtilsScanOfLoadedBookings} and {@code epochDayScanOfLoadedBookings} run the same linear scan,
+ * over {@code LocalDate} fields of the entities and over {@code int} epoch-day arrays respectively, which
+ * isolates the cost of the date representation from the search strategy.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=OverlapCheckBenchmark}; the gc
+ * profiler adds the allocation rate to the report in {@code target/jmh-result.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverlapCheckBenchmark {
+
+    private static final String PROPERTY = "bench-property";
+
+    @Param({"10", "1000", "100000"})
+    public int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private AvailabilityIndex index;
+    private AvailabilityIndex probes;
+    private List<Booking> loaded;
+    private int[] loadedStarts;
+    private int[] loadedEnds;
+    private LocalDate first;
+    private int horizonDays;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("overlap" + bookings);
+        bookingRepository = context.getBean(BookingRepository.class);
+        BlockingRepository blockRepository = context.getBean(BlockingRepository.class);
+        BlockRuleRepository blockRuleRepository = context.getBean(BlockRuleRepository.class);
+        loaded = BenchmarkApplication.seed(bookingRepository, PROPERTY, bookings);
+        loadedStarts = loaded.stream().mapToInt(b -> (int) b.getStartDate().toEpochDay()).toArray();
+        loadedEnds = loaded.stream().mapToInt(b -> (int) b.getEndDate().toEpochDay()).toArray();
+
+        index = new AvailabilityIndex(bookingRepository, blockRepository, blockRuleRepository, true, 100_000, new SimpleMeterRegistry());
+        probes = new AvailabilityIndex(bookingRepository, blockRepository, blockRuleRepository, false, 100_000, new SimpleMeterRegistry());
+        first = LocalDate.now().plusDays(1);
+        horizonDays = bookings * BenchmarkApplication.STRIDE_DAYS;
+        index.findBookingConflict(PROPERTY, first, first, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Pre-generated probe windows, so picking the next one costs an array read rather than a
+     * per-invocation setup call.
+     */
+    @State(Scope.Thread)
+    public static class Window {
+        private static final int SIZE = 4096;
+        private final LocalDate[] starts = new LocalDate[SIZE];
+        private final int[] startDays = new int[SIZE];
+        private int cursor;
+        LocalDate start;
+        LocalDate end;
+        int startDay;
+        int endDay;
+
+        @Setup(Level.Trial)
+        public void setUp(OverlapCheckBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < SIZE; i++) {
+                starts[i] = benchmark.first.plusDays(random.nextInt(benchmark.horizonDays));
+                startDays[i] = (int) starts[i].toEpochDay();
+            }
+        }
+
+        Window next() {
+            int slot = cursor++ & (SIZE - 1);
+            start = starts[slot];
+            end = start;
+            startDay = startDays[slot];
+            endDay = startDay;
+            return this;
+        }
+    }
+
+    @Benchmark
+    public boolean dateUtilsScanOfLoadedBookings(Window probe) {
+        Window window = probe.next();
+        // the original hot path without the repository call: a linear scan of the property's bookings
+        for (Booking booking : loaded) {
+            if (booking.getStatus() != BookingStatus.CANCELED
+                    && DateUtils.overlap(window.start, window.end, booking.getStartDate(), booking.getEndDate())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean epochDayScanOfLoadedBookings(Window probe) {
+        Window window = probe.next();
+        // seeded bookings are all active, so the status check of the LocalDate scan has nothing to filter
+        int[] starts = loadedStarts;
+        int[] ends = loadedEnds;
+        for (int i = 0; i < starts.length; i++) {
+            if (DateUtils.overlap(window.startDay, window.endDay, starts[i], ends[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean repositoryLoadAndScan(Window probe) {
+        Window window = probe.next();
+        // the original hot path: load the property's full history from H2, then scan it
+        for (Booking booking : bookingRepository.findByPropertyId(PROPERTY)) {
+            if (booking.getStatus() != BookingStatus.CANCELED
+                    && DateUtils.overlap(window.start, window.end, booking.getStartDate(), booking.getEndDate())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public Optional<BookingConflict> repositoryRangeProbe(Window probe) {
+        Window window = probe.next();
+        return probes.findBookingConflict(PROPERTY, window.start, window.end, null);
+    }
+
+    @Benchmark
+    public Optional<BookingConflict> inMemoryIndex(Window probe) {
+        Window window = probe.next();
+        return index.findBookingConflict(PROPERTY, window.start, window.end, null);
+    }
+
+    @Benchmark
+    public LocalDate validateDates(Window probe) {
+        Window window = probe.next();
+        DateUtils.validateDates(window.start, window.end);
+        return window.start;
+    }
+}
@@ -0,0 +1,91 @@
+package com.book.bookhost.benchmark;
+
+import com.book.bookhost.config.WireFormatConfig;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost and size of the list payloads of {@code /api/bookings/guestName} and
+ * {@code /api/blocks/{propertyId}} in JSON, as Spring Boot writes it with ISO dates, and in the CBOR and Smile
+ * formats of {@link WireFormatConfig}, which write dates as epoch days.
+ * <p>
+ * The {@code bytes} counter in the results is the size of one encoded payload. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=WireFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private ObjectWriter writer;
+    private List<Booking> bookings;
+    private List<Block> blocks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        writer = switch (format) {
+            case "json" -> builder.build().writer();
+            case "cbor" -> WireFormatConfig.binaryMapper(builder, new CBORFactory()).writer();
+            case "smile" -> WireFormatConfig.binaryMapper(builder, new SmileFactory()).writer();
+            default -> throw new IllegalArgumentException(format);
+        };
+        bookings = new ArrayList<>(items);
+        blocks = new ArrayList<>(items);
+        LocalDate first = LocalDate.now().plusDays(1);
+        for (int i = 0; i < items; i++) {
+            Booking booking = BenchmarkApplication.stay(i % 10, i);
+            booking.setId(1_000_000L + i);
+            booking.setVersion(0L);
+            bookings.add(booking);
+            LocalDate start = first.plusDays(i * (long) BenchmarkApplication.STRIDE_DAYS);
+            Block block = new Block("bench-" + (i % 10), start, start.plusDays(1), "Maintenance");
+            block.setId(2_000_000L + i);
+            blocks.add(block);
+        }
+    }
+
+    /**
+     * Size in bytes of the last payload encoded by the thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Benchmark
+    public byte[] encodeBookings(Size size) throws Exception {
+        byte[] encoded = writer.writeValueAsBytes(bookings);
+        size.bytes = encoded.length;
+        return encoded;
+    }
+
+    @Benchmark
+    public byte[] encodeBlocks(Size size) throws Exception {
+        byte[] encoded = writer.writeValueAsBytes(blocks);
+        size.bytes = encoded.length;
+        return encoded;
+    }
+}
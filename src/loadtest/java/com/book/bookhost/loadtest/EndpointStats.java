@@ -0,0 +1,52 @@
+package com.book.bookhost.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies (in microseconds) and response statuses of one endpoint, shared by all load threads.
+ */
+final class EndpointStats {
+
+    private final ConcurrentHistogram latencyMicros = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    void record(int status, long elapsedNanos) {
+        latencyMicros.recordValue(Math.max(1, elapsedNanos / 1_000));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /**
+     * Counts a request that failed without a response, e.g. on a connection error.
+     */
+    void recordError(long elapsedNanos) {
+        latencyMicros.recordValue(Math.max(1, elapsedNanos / 1_000));
+        errors.increment();
+    }
+
+    void reset() {
+        latencyMicros.reset();
+        statuses.clear();
+        errors.reset();
+    }
+
+    Histogram latencies() {
+        return latencyMicros.copy();
+    }
+
+    Map<String, Long> statuses() {
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(String.valueOf(status), count.sum()));
+        return counts;
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+}
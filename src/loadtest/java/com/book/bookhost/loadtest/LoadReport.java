@@ -0,0 +1,33 @@
+package com.book.bookhost.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Machine-readable result of a load test run, written as JSON.
+ */
+record LoadReport(String generatedAt, Map<String, Object> config, double measuredSeconds,
+                  Map<String, Endpoint> endpoints, Endpoint overall) {
+
+    record Endpoint(long requests, double throughputPerSecond, Map<String, Long> statuses, long errors,
+                    Latency latencyMillis) {
+
+        static Endpoint of(Histogram latencyMicros, Map<String, Long> statuses, long errors, double seconds) {
+            long requests = latencyMicros.getTotalCount();
+            return new Endpoint(requests, requests / seconds, statuses, errors, Latency.of(latencyMicros));
+        }
+    }
+
+    record Latency(double mean, double p50, double p99, double p999, double max) {
+
+        static Latency of(Histogram micros) {
+            return new Latency(
+                    micros.getMean() / 1_000.0,
+                    micros.getValueAtPercentile(50) / 1_000.0,
+                    micros.getValueAtPercentile(99) / 1_000.0,
+                    micros.getValueAtPercentile(99.9) / 1_000.0,
+                    micros.getMaxValue() / 1_000.0);
+        }
+    }
+}
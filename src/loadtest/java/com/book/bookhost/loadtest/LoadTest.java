@@ -0,0 +1,181 @@
+package com.book.bookhost.loadtest;
+
+import com.book.bookhost.BookhostApplication;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts the application on a random port with a fresh in-memory H2 database, seeds it and drives a closed-loop
+ * mix of booking and block requests from {@code loadtest.threads} threads. After a warm-up that is not
+ * measured, throughput, status counts and p50/p99/p999 latency per endpoint are printed and written as JSON
+ * to {@code loadtest.report}.
+ * <p>
+ * Run with {@code mvn -Ploadtest test-compile exec:exec}; see {@link LoadTestConfig} for the settings.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookhostApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                "--spring.h2.console.enabled=false",
+                // every load thread is the same client on one address, so admission control is off unless asked for
+                "--bookhost.admission.enabled=" + Boolean.getBoolean("loadtest.admission"),
+                "--logging.level.root=WARN")) {
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/");
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            LocalDate firstDay = LocalDate.now().plusDays(1);
+
+            long seedStarted = System.nanoTime();
+            List<Traffic.Stay> seeded = seed(context, config, firstDay);
+            System.out.printf("Seeded %d bookings on %d properties in %d ms%n", seeded.size(), config.properties(),
+                    Duration.ofNanos(System.nanoTime() - seedStarted).toMillis());
+
+            // slot bookingsPerProperty holds the seeded block, creates start after it
+            Traffic traffic = new Traffic(base, objectMapper, config.conflictRate(), firstDay, seeded,
+                    config.properties(), config.bookingsPerProperty() + 1);
+            drive(traffic, config, config.warmup(), 1);
+            traffic.stats().values().forEach(EndpointStats::reset);
+            long measureStarted = System.nanoTime();
+            drive(traffic, config, config.duration(), 2);
+            double seconds = (System.nanoTime() - measureStarted) / 1e9;
+
+            LoadReport report = report(traffic, config, seconds);
+            print(report);
+            if (config.report().getParent() != null) {
+                Files.createDirectories(config.report().getParent());
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(config.report().toFile(), report);
+            System.out.println("Report written to " + config.report().toAbsolutePath());
+        }
+    }
+
+    private static List<Traffic.Stay> seed(ConfigurableApplicationContext context, LoadTestConfig config, LocalDate firstDay) {
+        BookingRepository bookingRepository = context.getBean(BookingRepository.class);
+        BlockingRepository blockRepository = context.getBean(BlockingRepository.class);
+        List<Traffic.Stay> seeded = new ArrayList<>(config.properties() * config.bookingsPerProperty());
+        List<Booking> chunk = new ArrayList<>();
+        for (int p = 0; p < config.properties(); p++) {
+            for (int slot = 0; slot < config.bookingsPerProperty(); slot++) {
+                LocalDate start = Traffic.slotStart(firstDay, slot);
+                chunk.add(new Booking(Traffic.guestName(p), "seed@loadtest.com", Traffic.propertyId(p),
+                        start, start.plusDays(Traffic.STAY_DAYS - 1), BookingStatus.ACTIVE));
+                if (chunk.size() == 1_000) {
+                    saveChunk(bookingRepository, chunk, seeded);
+                }
+            }
+        }
+        saveChunk(bookingRepository, chunk, seeded);
+
+        List<Block> blocks = new ArrayList<>(config.properties());
+        for (int p = 0; p < config.properties(); p++) {
+            LocalDate start = Traffic.slotStart(firstDay, config.bookingsPerProperty());
+            blocks.add(new Block(Traffic.propertyId(p), start, start.plusDays(Traffic.STAY_DAYS - 1), "Seeded"));
+        }
+        blockRepository.saveAll(blocks);
+        // the occupancy index was built at start-up, before these rows existed
+        context.getBean(OccupancyBitmapIndex.class).rebuild();
+        return seeded;
+    }
+
+    private static void saveChunk(BookingRepository repository, List<Booking> chunk, List<Traffic.Stay> seeded) {
+        for (Booking booking : repository.saveAll(chunk)) {
+            seeded.add(new Traffic.Stay(booking.getId(), booking.getGuestName(), booking.getPropertyId(),
+                    booking.getStartDate(), booking.getEndDate()));
+        }
+        chunk.clear();
+    }
+
+    private static void drive(Traffic traffic, LoadTestConfig config, Duration duration, long seed) throws Exception {
+        List<Operation> operations = new ArrayList<>(config.mix().keySet());
+        int[] cumulative = new int[operations.size()];
+        int total = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            total += config.mix().get(operations.get(i));
+            cumulative[i] = total;
+        }
+        int totalWeight = total;
+        long deadline = System.nanoTime() + duration.toNanos();
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads());
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < config.threads(); t++) {
+                SplittableRandom random = root.split();
+                running.add(workers.submit(() -> {
+                    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                        int pick = random.nextInt(totalWeight);
+                        int i = 0;
+                        while (cumulative[i] <= pick) {
+                            i++;
+                        }
+                        traffic.execute(operations.get(i), random);
+                    }
+                }));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static LoadReport report(Traffic traffic, LoadTestConfig config, double seconds) {
+        Map<String, LoadReport.Endpoint> endpoints = new LinkedHashMap<>();
+        Histogram overall = new Histogram(3);
+        Map<String, Long> overallStatuses = new LinkedHashMap<>();
+        long overallErrors = 0;
+        for (Map.Entry<Operation, EndpointStats> entry : traffic.stats().entrySet()) {
+            EndpointStats stats = entry.getValue();
+            Histogram latencies = stats.latencies();
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            endpoints.put(entry.getKey().endpoint(), LoadReport.Endpoint.of(latencies, stats.statuses(), stats.errors(), seconds));
+            overall.add(latencies);
+            stats.statuses().forEach((status, count) -> overallStatuses.merge(status, count, Long::sum));
+            overallErrors += stats.errors();
+        }
+        return new LoadReport(Instant.now().toString(), config.describe(), seconds, endpoints,
+                LoadReport.Endpoint.of(overall, overallStatuses, overallErrors, seconds));
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%n%-34s %9s %10s %9s %9s %9s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        report.endpoints().forEach((endpoint, result) -> printRow(endpoint, result));
+        printRow("overall", report.overall());
+    }
+
+    private static void printRow(String endpoint, LoadReport.Endpoint result) {
+        System.out.printf("%-34s %9d %10.1f %9.2f %9.2f %9.2f  %s%n", endpoint, result.requests(),
+                result.throughputPerSecond(), result.latencyMillis().p50(), result.latencyMillis().p99(),
+                result.latencyMillis().p999(), result.statuses());
+    }
+}
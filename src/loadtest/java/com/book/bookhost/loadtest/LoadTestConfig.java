@@ -0,0 +1,68 @@
+package com.book.bookhost.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ */
+record LoadTestConfig(int properties, int bookingsPerProperty, int threads, Duration warmup, Duration duration,
+                      double conflictRate, Map<Operation, Integer> mix, Path report) {
+
+    private static final String DEFAULT_MIX = "get:40,guest:15,create:20,cancel:8,rebook:7,block-get:5,block-create:5";
+
+    static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig(
+                Integer.getInteger("loadtest.properties", 200),
+                Integer.getInteger("loadtest.bookings-per-property", 50),
+                Integer.getInteger("loadtest.threads", 16),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+                Double.parseDouble(System.getProperty("loadtest.conflict-rate", "0.1")),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")));
+        if (config.properties < 1 || config.bookingsPerProperty < 1 || config.threads < 1) {
+            throw new IllegalArgumentException("loadtest.properties, bookings-per-property and threads must be positive");
+        }
+        if (config.conflictRate < 0 || config.conflictRate > 1) {
+            throw new IllegalArgumentException("loadtest.conflict-rate must be between 0 and 1");
+        }
+        return config;
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("properties", properties);
+        description.put("bookingsPerProperty", bookingsPerProperty);
+        description.put("threads", threads);
+        description.put("warmupSeconds", warmup.toSeconds());
+        description.put("durationSeconds", duration.toSeconds());
+        description.put("conflictRate", conflictRate);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((operation, weight) -> weights.put(operation.key(), weight));
+        description.put("mix", weights);
+        return description;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix entries look like get:40, got '" + entry + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("loadtest.mix weights must not be negative");
+            }
+            mix.put(Operation.fromKey(parts[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix needs at least one positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,39 @@
+package com.book.bookhost.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The requests the load test sends, each reported as its own endpoint.
+ */
+enum Operation {
+    CREATE("create", "POST /api/bookings"),
+    GET("get", "GET /api/bookings/{id}"),
+    CANCEL("cancel", "POST /api/bookings/{id}/cancel"),
+    REBOOK("rebook", "POST /api/bookings/{id}/rebook"),
+    GUEST("guest", "GET /api/bookings/guestName/page"),
+    BLOCK_CREATE("block-create", "POST /api/blocks"),
+    BLOCK_GET("block-get", "GET /api/blocks/{propertyId}");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    static Operation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown loadtest.mix operation '" + key + "'"));
+    }
+}
@@ -0,0 +1,202 @@
+package com.book.bookhost.loadtest;
+
+import com.book.bookhost.dto.BlockRequest;
+import com.book.bookhost.dto.BookingRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends one request of a given {@link Operation} against the running application and records its outcome.
+ * <p>
+ * Every property's calendar is a row of slots, one stay every {@link #STRIDE_DAYS} days. Seeded stays take
+ * the first slots; non-conflicting creates and blocks claim the next free slot of a random property, and
+ * conflicting creates reuse the dates of a seeded stay. Bookings created or rebooked by the test feed the
+ * cancel queue, and canceled ones feed the rebook queue; an operation whose queue is empty is sent as a GET.
+ */
+final class Traffic {
+
+    static final int STAY_DAYS = 2;
+    static final int STRIDE_DAYS = 3;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI base;
+    private final ObjectMapper objectMapper;
+    private final double conflictRate;
+    private final LocalDate firstDay;
+    private final List<Stay> seeded;
+    private final AtomicInteger[] nextSlot;
+    private final ConcurrentLinkedQueue<Stay> active = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Stay> canceled = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    Traffic(URI base, ObjectMapper objectMapper, double conflictRate, LocalDate firstDay, List<Stay> seeded,
+            int properties, int firstFreeSlot) {
+        this.base = base;
+        this.objectMapper = objectMapper;
+        this.conflictRate = conflictRate;
+        this.firstDay = firstDay;
+        this.seeded = seeded;
+        this.nextSlot = new AtomicInteger[properties];
+        for (int p = 0; p < properties; p++) {
+            nextSlot[p] = new AtomicInteger(firstFreeSlot);
+        }
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    static String propertyId(int property) {
+        return "lt-" + property;
+    }
+
+    static String guestName(int property) {
+        return "Guest " + property;
+    }
+
+    static LocalDate slotStart(LocalDate firstDay, int slot) {
+        return firstDay.plusDays((long) slot * STRIDE_DAYS);
+    }
+
+    Map<Operation, EndpointStats> stats() {
+        return stats;
+    }
+
+    void execute(Operation operation, SplittableRandom random) {
+        switch (operation) {
+            case CREATE -> create(random);
+            case GET -> get(random);
+            case CANCEL -> cancel(random);
+            case REBOOK -> rebook(random);
+            case GUEST -> send(Operation.GUEST, get("/api/bookings/guestName/page?size=50&guestName="
+                    + URLEncoder.encode(guestName(random.nextInt(nextSlot.length)), StandardCharsets.UTF_8)));
+            case BLOCK_CREATE -> createBlock(random);
+            case BLOCK_GET -> send(Operation.BLOCK_GET, get("/api/blocks/" + propertyId(random.nextInt(nextSlot.length))));
+        }
+    }
+
+    private void create(SplittableRandom random) {
+        Stay stay;
+        if (random.nextDouble() < conflictRate) {
+            Stay taken = seeded.get(random.nextInt(seeded.size()));
+            stay = new Stay(null, taken.guestName(), taken.propertyId(), taken.start(), taken.end());
+        } else {
+            int property = random.nextInt(nextSlot.length);
+            LocalDate start = slotStart(firstDay, nextSlot[property].getAndIncrement());
+            stay = new Stay(null, guestName(property), propertyId(property), start, start.plusDays(STAY_DAYS - 1));
+        }
+        HttpResponse<String> response = send(Operation.CREATE, post("/api/bookings", stay.toRequest()));
+        if (succeeded(response)) {
+            active.add(stay.withId(idOf(response)));
+        }
+    }
+
+    private void get(SplittableRandom random) {
+        send(Operation.GET, get("/api/bookings/" + seeded.get(random.nextInt(seeded.size())).id()));
+    }
+
+    private void cancel(SplittableRandom random) {
+        Stay stay = active.poll();
+        if (stay == null) {
+            get(random);
+            return;
+        }
+        HttpResponse<String> response = send(Operation.CANCEL, post("/api/bookings/" + stay.id() + "/cancel", null));
+        if (succeeded(response)) {
+            canceled.add(stay);
+        }
+    }
+
+    private void rebook(SplittableRandom random) {
+        Stay stay = canceled.poll();
+        if (stay == null) {
+            get(random);
+            return;
+        }
+        HttpResponse<String> response = send(Operation.REBOOK, post("/api/bookings/" + stay.id() + "/rebook", stay.toRequest()));
+        if (succeeded(response)) {
+            active.add(stay);
+        }
+    }
+
+    private void createBlock(SplittableRandom random) {
+        int property = random.nextInt(nextSlot.length);
+        LocalDate start = slotStart(firstDay, nextSlot[property].getAndIncrement());
+        send(Operation.BLOCK_CREATE, post("/api/blocks",
+                new BlockRequest(propertyId(property), start, start.plusDays(STAY_DAYS - 1), "Load test")));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path));
+        if (body == null) {
+            return request.POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        try {
+            return request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize " + body, e);
+        }
+    }
+
+    private HttpResponse<String> send(Operation operation, HttpRequest request) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            stats.get(operation).record(response.statusCode(), System.nanoTime() - started);
+            return response;
+        } catch (IOException e) {
+            stats.get(operation).recordError(System.nanoTime() - started);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static boolean succeeded(HttpResponse<String> response) {
+        return response != null && response.statusCode() / 100 == 2;
+    }
+
+    private long idOf(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body()).get("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected response " + response.body(), e);
+        }
+    }
+
+    record Stay(Long id, String guestName, String propertyId, LocalDate start, LocalDate end) {
+
+        Stay withId(long id) {
+            return new Stay(id, guestName, propertyId, start, end);
+        }
+
+        BookingRequest toRequest() {
+            return new BookingRequest(guestName, guestName.toLowerCase().replace(' ', '.') + "@loadtest.com",
+                    propertyId, start, end);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.book.bookhost.admission;
+
+import com.book.bookhost.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for the write endpoints: a token bucket and a cap on concurrent requests for every API
+ * client and every property.
+ * <p>
+ * A request over either limit is rejected at once with a {@link TooManyRequestsException}, which answers 429
+ * with a {@code Retry-After} header, instead of queueing for a database connection. Limiters are created on
+ * first use and dropped after {@code bookhost.admission.idle-expiry} without traffic, or earlier, least used
+ * first, once a scope holds {@code bookhost.admission.max-limiters}; admitting a request only touches atomics.
+ */
+@Component
+public class AdmissionControl {
+
+    /** Returned by disabled admission control and released without effect. */
+    public static final Permit UNLIMITED = () -> { };
+
+    private final boolean enabled;
+    private final Scope clients;
+    private final Scope properties;
+    private final LongSupplier clock;
+
+    @Autowired
+    public AdmissionControl(@Value("${bookhost.admission.enabled:true}") boolean enabled,
+                            @Value("${bookhost.admission.client.rate-per-second:200}") double clientRate,
+                            @Value("${bookhost.admission.client.burst:400}") int clientBurst,
+                            @Value("${bookhost.admission.client.max-concurrent:32}") int clientConcurrency,
+                            @Value("${bookhost.admission.property.rate-per-second:20}") double propertyRate,
+                            @Value("${bookhost.admission.property.burst:40}") int propertyBurst,
+                            @Value("${bookhost.admission.property.max-concurrent:4}") int propertyConcurrency,
+                            @Value("${bookhost.admission.idle-expiry:10m}") Duration idleExpiry,
+                            @Value("${bookhost.admission.max-limiters:100000}") long maxLimiters,
+                            MeterRegistry meterRegistry) {
+        this(enabled, new Limits(clientRate, clientBurst, clientConcurrency),
+                new Limits(propertyRate, propertyBurst, propertyConcurrency), idleExpiry, maxLimiters, meterRegistry,
+                System::nanoTime);
+    }
+
+    AdmissionControl(boolean enabled, Limits clientLimits, Limits propertyLimits, Duration idleExpiry,
+                     long maxLimiters, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.clients = new Scope("client", clientLimits, idleExpiry, maxLimiters, meterRegistry);
+        this.properties = new Scope("property", propertyLimits, idleExpiry, maxLimiters, meterRegistry);
+    }
+
+    public Permit admitClient(String clientId) {
+        return admit(clients, clientId);
+    }
+
+    public Permit admitProperty(String propertyId) {
+        return admit(properties, propertyId);
+    }
+
+    /**
+     * Runs {@code action} within the limits of {@code propertyId}.
+     */
+    public <T> T forProperty(String propertyId, Supplier<T> action) {
+        Permit permit = admitProperty(propertyId);
+        try {
+            return action.get();
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Runs {@code action} within the limits of every distinct property of {@code propertyIds}; one over its
+     * limit rejects the whole call.
+     */
+    public <T> T forProperties(Collection<String> propertyIds, Supplier<T> action) {
+        List<Permit> permits = new ArrayList<>();
+        try {
+            propertyIds.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted()
+                    .forEach(propertyId -> permits.add(admitProperty(propertyId)));
+            return action.get();
+        } finally {
+            permits.forEach(Permit::close);
+        }
+    }
+
+    private Permit admit(Scope scope, String key) {
+        if (!enabled || key == null) {
+            return UNLIMITED;
+        }
+        Limiter limiter = scope.limiters.get(key, k -> scope.limits.newLimiter(clock.getAsLong()));
+        long wait = limiter.tryAdmit(clock.getAsLong());
+        if (wait == Limiter.AT_CAPACITY) {
+            scope.rejectedConcurrency.increment();
+            throw new TooManyRequestsException("Too many concurrent requests for " + scope.name + " " + key, 1);
+        }
+        if (wait > 0) {
+            scope.rejectedRate.increment();
+            throw new TooManyRequestsException("Rate limit exceeded for " + scope.name + " " + key,
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        scope.admitted.increment();
+        scope.inFlight.incrementAndGet();
+        return () -> {
+            limiter.release();
+            scope.inFlight.decrementAndGet();
+        };
+    }
+
+    /**
+     * A slot of the concurrency limit, held until closed.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    record Limits(double ratePerSecond, int burst, int maxConcurrent) {
+
+        Limiter newLimiter(long nowNanos) {
+            return new Limiter(new TokenBucket(ratePerSecond, burst, nowNanos), maxConcurrent);
+        }
+    }
+
+    private static final class Scope {
+        private final String name;
+        private final Limits limits;
+        private final Cache<String, Limiter> limiters;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter admitted;
+        private final Counter rejectedRate;
+        private final Counter rejectedConcurrency;
+
+        private Scope(String name, Limits limits, Duration idleExpiry, long maxLimiters, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.limits = limits;
+            this.limiters = Caffeine.newBuilder()
+                    .expireAfterAccess(idleExpiry)
+                    .maximumSize(maxLimiters)
+                    .build();
+            this.admitted = Counter.builder("bookhost.admission.admitted")
+                    .tag("scope", name)
+                    .register(meterRegistry);
+            this.rejectedRate = rejected(meterRegistry, "rate");
+            this.rejectedConcurrency = rejected(meterRegistry, "concurrency");
+            Gauge.builder("bookhost.admission.in.flight", inFlight, AtomicInteger::get)
+                    .description("Admitted write requests still running")
+                    .tag("scope", name)
+                    .register(meterRegistry);
+            Gauge.builder("bookhost.admission.limiters", limiters, Cache::estimatedSize)
+                    .description("Clients or properties with a live limiter")
+                    .tag("scope", name)
+                    .register(meterRegistry);
+        }
+
+        private Counter rejected(MeterRegistry meterRegistry, String reason) {
+            return Counter.builder("bookhost.admission.rejected")
+                    .description("Write requests answered 429")
+                    .tag("scope", name)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+}
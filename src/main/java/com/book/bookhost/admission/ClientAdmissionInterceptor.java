@@ -0,0 +1,48 @@
+package com.book.bookhost.admission;
+
+import com.book.bookhost.util.ClientIds;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Applies the per-client limits of {@link AdmissionControl} to write requests. The client is named by the
+ * {@code bookhost.admission.client-header} header, or by the remote address when the header is absent or
+ * the setting is empty. A caller choosing a new header value per request would get a fresh limit each
+ * time, so the header must be set by a trusted proxy; otherwise leave the setting empty.
+ */
+@Component
+public class ClientAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final String PERMIT = ClientAdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionControl admissionControl;
+    private final String clientHeader;
+
+    public ClientAdmissionInterceptor(AdmissionControl admissionControl,
+                                      @Value("${bookhost.admission.client-header:X-Client-Id}") String clientHeader) {
+        this.admissionControl = admissionControl;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            request.setAttribute(PERMIT, admissionControl.admitClient(ClientIds.of(request, clientHeader)));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof AdmissionControl.Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.book.bookhost.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate and concurrency limit of one client or property.
+ */
+final class Limiter {
+
+    static final long AT_CAPACITY = -1;
+
+    private final TokenBucket bucket;
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    Limiter(TokenBucket bucket, int maxConcurrent) {
+        this.bucket = bucket;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Claims a concurrency slot, then a token.
+     *
+     * @return {@code 0} if admitted, {@link #AT_CAPACITY} if every slot is taken, otherwise the nanoseconds
+     * until a token is available
+     */
+    long tryAdmit(long nowNanos) {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return AT_CAPACITY;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        long wait = bucket.tryAcquire(nowNanos);
+        if (wait > 0) {
+            inFlight.decrementAndGet();
+        }
+        return wait;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
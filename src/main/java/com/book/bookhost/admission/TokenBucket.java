@@ -0,0 +1,46 @@
+package com.book.bookhost.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket refilled at {@code ratePerSecond} up to {@code burst} tokens.
+ * <p>
+ * Instead of a token count and a refill timestamp the bucket keeps a single {@code long}: the time at which
+ * it will be full again, the "theoretical arrival time" of the generic cell rate algorithm. Taking a token
+ * pushes that time one emission interval into the future, and a request is admitted while it lies no more
+ * than {@code burst - 1} intervals ahead of now, so one compare-and-set updates the whole state.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token.
+     *
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long from = Math.max(current, nowNanos);
+            long ahead = from - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, from + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
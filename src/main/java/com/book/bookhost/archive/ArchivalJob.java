@@ -0,0 +1,153 @@
+package com.book.bookhost.archive;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.cache.BlockChangeCounter;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.repository.BlockHistoryRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingHistoryRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.util.DateUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Moves bookings and blocks that ended before today into bkn_bookings_history and blk_blocks_history.
+ * <p>
+ * {@link DateUtils#validateDates} rejects requests reaching into the past, so such rows can never conflict
+ * again and only slow down the live tables. Each chunk runs in its own transaction: the rows are locked,
+ * copied with one insert-select and deleted with one batch delete, so a failure leaves every row in exactly
+ * one of the two tables. Archived bookings stay readable through {@code BookingService}.
+ * <p>
+ * Once a chunk commits, the calendars of its properties in the {@link AvailabilityIndex} drop what has ended,
+ * and after a run the {@link OccupancyBitmapIndex} drops the days before today, so the in-memory indexes
+ * follow the live tables down to upcoming inventory.
+ */
+@Slf4j
+@Component
+public class ArchivalJob {
+
+    private final BookingRepository bookingRepository;
+    private final BlockingRepository blockRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final BlockHistoryRepository blockHistoryRepository;
+    private final BlockChangeCounter blockChangeCounter;
+    private final AvailabilityIndex availabilityIndex;
+    private final OccupancyBitmapIndex occupancyIndex;
+    private final TransactionTemplate transactions;
+    private final int chunkSize;
+    private final Counter archivedBookings;
+    private final Counter archivedBlocks;
+
+    public ArchivalJob(BookingRepository bookingRepository, BlockingRepository blockRepository,
+                       BookingHistoryRepository bookingHistoryRepository, BlockHistoryRepository blockHistoryRepository,
+                       BlockChangeCounter blockChangeCounter, AvailabilityIndex availabilityIndex,
+                       OccupancyBitmapIndex occupancyIndex, PlatformTransactionManager transactionManager,
+                       @Value("${bookhost.archive.chunk-size:500}") int chunkSize,
+                       MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.blockRepository = blockRepository;
+        this.bookingHistoryRepository = bookingHistoryRepository;
+        this.blockHistoryRepository = blockHistoryRepository;
+        this.blockChangeCounter = blockChangeCounter;
+        this.availabilityIndex = availabilityIndex;
+        this.occupancyIndex = occupancyIndex;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.archivedBookings = archivedCounter(meterRegistry, "booking");
+        this.archivedBlocks = archivedCounter(meterRegistry, "block");
+    }
+
+    @Scheduled(cron = "${bookhost.archive.cron:0 15 3 * * *}")
+    public void archiveExpired() {
+        ArchiveResult result = archiveEndedBefore(DateUtils.today());
+        log.info("Archived {} bookings and {} blocks", result.bookings(), result.blocks());
+    }
+
+    public ArchiveResult archiveEndedBefore(LocalDate cutoff) {
+        Instant archivedAt = Instant.now();
+        int bookings = drain(() -> archiveBookingChunk(cutoff, archivedAt));
+        int blocks = drain(() -> archiveBlockChunk(cutoff, archivedAt));
+        occupancyIndex.pruneEnded();
+        return new ArchiveResult(bookings, blocks);
+    }
+
+    private int drain(IntSupplier chunk) {
+        int total = 0;
+        int moved;
+        do {
+            Integer result = transactions.execute(status -> chunk.getAsInt());
+            moved = result == null ? 0 : result;
+            total += moved;
+        } while (moved == chunkSize);
+        return total;
+    }
+
+    private int archiveBookingChunk(LocalDate cutoff, Instant archivedAt) {
+        List<Booking> bookings = bookingRepository.findEndingBeforeForUpdate(cutoff, Limit.of(chunkSize));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = bookings.stream().map(Booking::getId).toList();
+        bookingHistoryRepository.copyFromBookings(ids, archivedAt);
+        bookingRepository.deleteAllByIdInBatch(ids);
+        pruneAfterCommit(bookings.stream().map(Booking::getPropertyId).distinct().toList());
+        archivedBookings.increment(ids.size());
+        return ids.size();
+    }
+
+    private int archiveBlockChunk(LocalDate cutoff, Instant archivedAt) {
+        List<Block> blocks = blockRepository.findEndingBeforeForUpdate(cutoff, Limit.of(chunkSize));
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = blocks.stream().map(Block::getId).toList();
+        blockHistoryRepository.copyFromBlocks(ids, archivedAt);
+        blockRepository.deleteAllByIdInBatch(ids);
+        // archived blocks drop out of GET /api/blocks/{propertyId}, so its tag has to move once this commits
+        List<String> propertyIds = blocks.stream().map(Block::getPropertyId).distinct().toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                propertyIds.forEach(blockChangeCounter::changed);
+            }
+        });
+        pruneAfterCommit(propertyIds);
+        archivedBlocks.increment(ids.size());
+        return ids.size();
+    }
+
+    private void pruneAfterCommit(List<String> propertyIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                availabilityIndex.pruneEnded(propertyIds);
+            }
+        });
+    }
+
+    private static Counter archivedCounter(MeterRegistry registry, String entity) {
+        return Counter.builder("bookhost.archived")
+                .description("Rows moved from the live tables into the history tables")
+                .tag("entity", entity)
+                .register(registry);
+    }
+
+    public record ArchiveResult(int bookings, int blocks) {}
+}
@@ -0,0 +1,336 @@
+package com.book.bookhost.availability;
+
+import com.book.bookhost.availability.IntervalSet.Interval;
+import com.book.bookhost.concurrency.PropertyLockManager;
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.repository.BlockRuleRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.routing.ReplicaRouting;
+import com.book.bookhost.util.DateUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * In-memory, per-property index of the dates taken by non-canceled bookings, by blocks and by recurring
+ * block rules, which are kept as {@link Recurrence}s and never expanded into dates.
+ * <p>
+ * A property is loaded from the repositories the first time it is checked and is afterwards kept in
+ * sync by the booking and block change events, which are applied only after their transaction commits.
+ * Conflict checks for a resident property never touch the database. Only rows ending today or later are
+ * loaded, since {@link DateUtils#validateDates} rejects any request reaching into the past; for the same
+ * reason a calendar first used on a later day drops what has ended since. At most
+ * {@code bookhost.availability.max-resident-properties} calendars are kept, the least used being reloaded
+ * from the repositories when next needed.
+ * <p>
+ * With {@code bookhost.availability.index-enabled=false} nothing is cached and every check is answered by
+ * a single range probe against the (property_id, start_date, end_date) indexes instead.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private final BookingRepository bookingRepository;
+    private final BlockingRepository blockRepository;
+    private final BlockRuleRepository blockRuleRepository;
+
+    private final boolean enabled;
+
+    private final Cache<String, PropertyCalendar> calendars;
+
+    private final Counter bookingConflicts;
+    private final Counter blockConflicts;
+    private final DistributionSummary indexRowsScanned;
+    private final DistributionSummary loadRowsScanned;
+    private final IntConsumer recordIndexRowsScanned;
+
+    public AvailabilityIndex(BookingRepository bookingRepository, BlockingRepository blockRepository,
+                             BlockRuleRepository blockRuleRepository,
+                             @Value("${bookhost.availability.index-enabled:true}") boolean enabled,
+                             @Value("${bookhost.availability.max-resident-properties:100000}") long maxResidentProperties,
+                             MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.blockRepository = blockRepository;
+        this.blockRuleRepository = blockRuleRepository;
+        this.enabled = enabled;
+        this.calendars = Caffeine.newBuilder()
+                .maximumSize(maxResidentProperties)
+                .build();
+        this.bookingConflicts = conflictCounter(meterRegistry, "booking");
+        this.blockConflicts = conflictCounter(meterRegistry, "block");
+        this.indexRowsScanned = rowsScanned(meterRegistry, "index");
+        this.loadRowsScanned = rowsScanned(meterRegistry, "load");
+        this.recordIndexRowsScanned = indexRowsScanned::record;
+        Gauge.builder("bookhost.availability.resident.properties", calendars, Cache::estimatedSize)
+                .description("Properties currently held by the in-memory availability index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a non-canceled booking of {@code propertyId} overlapping {@code [start, end]},
+     * ignoring {@code ignoreBookingId} (the booking being modified), if any.
+     */
+    public Optional<BookingConflict> findBookingConflict(String propertyId, LocalDate start, LocalDate end,
+                                                         Long ignoreBookingId) {
+        Optional<BookingConflict> conflict;
+        if (!enabled) {
+            conflict = bookingRepository.findFirstOverlappingBookingId(propertyId, start, end, ignoreBookingId)
+                    .map(BookingConflict::new);
+        } else {
+            IntervalSet bookings = calendar(propertyId).bookings();
+            int match = bookings.probe(IntervalSet.epochDay(start), IntervalSet.epochDay(end), ignoreBookingId,
+                    recordIndexRowsScanned);
+            conflict = match < 0 ? Optional.empty() : Optional.of(new BookingConflict(bookings.idAt(match)));
+        }
+        conflict.ifPresent(found -> bookingConflicts.increment());
+        return conflict;
+    }
+
+    /**
+     * Returns a non-canceled booking of {@code propertyId} overlapping any occurrence of {@code rule}.
+     * Every upcoming booking of the property is tested against the rule, each in constant time.
+     */
+    public Optional<BookingConflict> findBookingConflict(String propertyId, Recurrence rule) {
+        Optional<BookingConflict> conflict;
+        if (!enabled) {
+            conflict = bookingRepository
+                    .findByPropertyIdAndStatusNotEndingOnOrAfter(propertyId, BookingStatus.CANCELED, DateUtils.today()).stream()
+                    .filter(b -> rule.overlaps(b.getStartDate(), b.getEndDate()))
+                    .map(b -> new BookingConflict(b.getId()))
+                    .findFirst();
+        } else {
+            IntervalSet bookings = calendar(propertyId).bookings();
+            int match = bookings.find(rule::overlaps);
+            conflict = match < 0 ? Optional.empty() : Optional.of(new BookingConflict(bookings.idAt(match)));
+        }
+        conflict.ifPresent(found -> bookingConflicts.increment());
+        return conflict;
+    }
+
+    public boolean overlapsBlock(String propertyId, LocalDate start, LocalDate end) {
+        boolean overlaps;
+        if (!enabled) {
+            overlaps = blockRepository.existsOverlapping(propertyId, start, end)
+                    || blockRuleRepository.findByPropertyIdEndingOnOrAfter(propertyId, start).stream()
+                            .anyMatch(rule -> rule.toRecurrence().overlaps(start, end));
+        } else {
+            PropertyCalendar calendar = calendar(propertyId);
+            int first = IntervalSet.epochDay(start);
+            int last = IntervalSet.epochDay(end);
+            overlaps = calendar.blocks().probe(first, last, null, recordIndexRowsScanned) >= 0
+                    || overlapsRule(calendar.rules(), first, last);
+        }
+        if (overlaps) {
+            blockConflicts.increment();
+        }
+        return overlaps;
+    }
+
+    /**
+     * Returns a day bitmap of {@code [from, to]}: bit {@code i} is set when day {@code from + i} is taken
+     * by a non-canceled booking or a block.
+     */
+    public BitSet occupiedDays(String propertyId, LocalDate from, LocalDate to) {
+        PropertyCalendar calendar = enabled ? calendarIfOccupied(propertyId) : load(propertyId);
+        int first = IntervalSet.epochDay(from);
+        int last = IntervalSet.epochDay(to);
+        BitSet days = new BitSet(last - first + 1);
+        calendar.bookings().markOverlapping(first, last, days);
+        calendar.blocks().markOverlapping(first, last, days);
+        for (Recurrence rule : calendar.rules()) {
+            rule.markOverlapping(first, last, days);
+        }
+        return days;
+    }
+
+    public boolean isResident(String propertyId) {
+        return calendars.getIfPresent(propertyId) != null;
+    }
+
+    public void clear() {
+        calendars.invalidateAll();
+    }
+
+    /**
+     * Drops what ended before today from the resident calendars of {@code propertyIds}.
+     */
+    public void pruneEnded(Collection<String> propertyIds) {
+        int today = IntervalSet.epochDay(DateUtils.today());
+        for (String propertyId : propertyIds) {
+            calendars.asMap().computeIfPresent(propertyId, (id, calendar) -> calendar.endingOnOrAfter(today));
+        }
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.bookingId() == null) {
+            return;
+        }
+        if (event.previousPropertyId() != null && !event.previousPropertyId().equals(event.propertyId())) {
+            calendars.asMap().computeIfPresent(event.previousPropertyId(),
+                    (id, calendar) -> calendar.withBookings(calendar.bookings().without(event.bookingId())));
+        }
+        calendars.asMap().computeIfPresent(event.propertyId(), (id, calendar) -> {
+            IntervalSet bookings = event.status() == BookingStatus.CANCELED
+                    ? calendar.bookings().without(event.bookingId())
+                    : calendar.bookings().with(Interval.of(event.bookingId(), event.startDate(), event.endDate()));
+            return calendar.withBookings(bookings);
+        });
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockChanged(BlockChangedEvent event) {
+        if (event.blockId() == null) {
+            return;
+        }
+        if (event.previousPropertyId() != null && !event.previousPropertyId().equals(event.propertyId())) {
+            calendars.asMap().computeIfPresent(event.previousPropertyId(),
+                    (id, calendar) -> calendar.withBlocks(calendar.blocks().without(event.blockId())));
+        }
+        calendars.asMap().computeIfPresent(event.propertyId(), (id, calendar) -> {
+            IntervalSet blocks = event.type() == ChangeType.DELETED
+                    ? calendar.blocks().without(event.blockId())
+                    : calendar.blocks().with(Interval.of(event.blockId(), event.startDate(), event.endDate()));
+            return calendar.withBlocks(blocks);
+        });
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockRuleChanged(BlockRuleChangedEvent event) {
+        if (event.ruleId() == null) {
+            return;
+        }
+        calendars.asMap().computeIfPresent(event.propertyId(), (id, calendar) -> {
+            List<Recurrence> rules = new ArrayList<>(calendar.rules().size() + 1);
+            for (Recurrence rule : calendar.rules()) {
+                if (rule.id() != event.ruleId()) {
+                    rules.add(rule);
+                }
+            }
+            if (event.type() != ChangeType.DELETED) {
+                rules.add(event.recurrence());
+            }
+            return calendar.withRules(List.copyOf(rules));
+        });
+    }
+
+    private static boolean overlapsRule(List<Recurrence> rules, int first, int last) {
+        for (Recurrence rule : rules) {
+            if (rule.overlaps(first, last)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PropertyCalendar calendar(String propertyId) {
+        return current(propertyId, calendars.get(propertyId, this::load));
+    }
+
+    // reads name arbitrary ids, so a property with nothing upcoming is answered without being kept resident
+    private PropertyCalendar calendarIfOccupied(String propertyId) {
+        PropertyCalendar[] loaded = new PropertyCalendar[1];
+        PropertyCalendar resident = calendars.get(propertyId, id -> {
+            loaded[0] = load(id);
+            return loaded[0].isEmpty() ? null : loaded[0];
+        });
+        return resident != null ? current(propertyId, resident) : loaded[0];
+    }
+
+    private PropertyCalendar current(String propertyId, PropertyCalendar calendar) {
+        int today = IntervalSet.epochDay(DateUtils.today());
+        if (calendar.day() >= today) {
+            return calendar;
+        }
+        PropertyCalendar pruned = calendars.asMap().computeIfPresent(propertyId, (id, c) -> c.endingOnOrAfter(today));
+        return pruned != null ? pruned : calendar.endingOnOrAfter(today);
+    }
+
+    // calendars are kept current by events from here on, so they must start from the primary, never a lagging replica
+    private PropertyCalendar load(String propertyId) {
+        return ReplicaRouting.onPrimary(() -> {
+            LocalDate today = DateUtils.today();
+            IntervalSet bookings = IntervalSet.of(bookingRepository
+                    .findByPropertyIdAndStatusNotEndingOnOrAfter(propertyId, BookingStatus.CANCELED, today).stream()
+                    .map(b -> Interval.of(b.getId(), b.getStartDate(), b.getEndDate()))
+                    .toList());
+            IntervalSet blocks = IntervalSet.of(blockRepository.findByPropertyIdEndingOnOrAfter(propertyId, today).stream()
+                    .map(b -> Interval.of(b.getId(), b.getStartDate(), b.getEndDate()))
+                    .toList());
+            List<Recurrence> rules = blockRuleRepository.findByPropertyIdEndingOnOrAfter(propertyId, today).stream()
+                    .map(BlockRule::toRecurrence)
+                    .toList();
+            loadRowsScanned.record(bookings.size() + blocks.size() + rules.size());
+            return new PropertyCalendar(bookings, blocks, rules, IntervalSet.epochDay(today));
+        });
+    }
+
+    private static Counter conflictCounter(MeterRegistry registry, String type) {
+        return Counter.builder("bookhost.conflicts")
+                .description("Requests rejected because their dates overlap an existing booking or block")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private static DistributionSummary rowsScanned(MeterRegistry registry, String source) {
+        return DistributionSummary.builder("bookhost.overlap.rows.scanned")
+                .description("Bookings and blocks examined per overlap check (index) or per property load (load)")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // what a property has ending on or after the epoch day in day
+    private record PropertyCalendar(IntervalSet bookings, IntervalSet blocks, List<Recurrence> rules, int day) {
+
+        boolean isEmpty() {
+            return bookings.size() == 0 && blocks.size() == 0 && rules.isEmpty();
+        }
+
+        PropertyCalendar withBookings(IntervalSet bookings) {
+            return new PropertyCalendar(bookings, blocks, rules, day);
+        }
+
+        PropertyCalendar withBlocks(IntervalSet blocks) {
+            return new PropertyCalendar(bookings, blocks, rules, day);
+        }
+
+        PropertyCalendar withRules(List<Recurrence> rules) {
+            return new PropertyCalendar(bookings, blocks, rules, day);
+        }
+
+        PropertyCalendar endingOnOrAfter(int today) {
+            List<Recurrence> current = new ArrayList<>(rules.size());
+            for (Recurrence rule : rules) {
+                if (IntervalSet.epochDay(rule.lastEndDate()) >= today) {
+                    current.add(rule);
+                }
+            }
+            return new PropertyCalendar(bookings.withoutEndingBefore(today), blocks.withoutEndingBefore(today),
+                    current.size() == rules.size() ? rules : List.copyOf(current), today);
+        }
+    }
+}
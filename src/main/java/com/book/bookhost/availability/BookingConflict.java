@@ -0,0 +1,7 @@
+package com.book.bookhost.availability;
+
+/**
+ * A booking standing in the way of a write. The id is {@code null} for a booking held without one.
+ */
+public record BookingConflict(Long bookingId) {
+}
@@ -0,0 +1,241 @@
+package com.book.bookhost.availability;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of closed date intervals sorted by start date.
+ * <p>
+ * Dates are held as {@code int} epoch days in parallel primitive arrays, so a probe compares ints and
+ * allocates nothing. Alongside the sorted intervals it keeps, for every position, the greatest end day
+ * seen so far. Because that prefix maximum never decreases, an overlap probe binary searches for the last
+ * interval starting on or before the requested end and walks left only while the prefix maximum can still
+ * reach the requested start, which makes a lookup O(log n) for the non-overlapping calendars we store.
+ * Mutations return a new instance so readers never need a lock.
+ */
+final class IntervalSet {
+
+    static final IntervalSet EMPTY = new IntervalSet(new long[0], new int[0], new int[0]);
+
+    /** Stored in place of a {@code null} id. */
+    static final long NO_ID = Long.MIN_VALUE;
+
+    private final long[] ids;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEndUpTo;
+
+    private IntervalSet(long[] ids, int[] starts, int[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEndUpTo = new int[ends.length];
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEndUpTo[i] = max;
+        }
+    }
+
+    static IntervalSet of(List<Interval> intervals) {
+        Interval[] sorted = intervals.toArray(new Interval[0]);
+        Arrays.sort(sorted, (a, b) -> a.start() != b.start()
+                ? Integer.compare(a.start(), b.start())
+                : Integer.compare(a.end(), b.end()));
+        long[] ids = new long[sorted.length];
+        int[] starts = new int[sorted.length];
+        int[] ends = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].id();
+            starts[i] = sorted[i].start();
+            ends[i] = sorted[i].end();
+        }
+        return new IntervalSet(ids, starts, ends);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns a copy holding {@code interval}, replacing any interval with the same id.
+     */
+    IntervalSet with(Interval interval) {
+        IntervalSet base = without(interval.id());
+        int pos = base.insertionPoint(interval.start(), interval.end());
+        int length = base.size();
+        long[] ids = new long[length + 1];
+        int[] starts = new int[length + 1];
+        int[] ends = new int[length + 1];
+        System.arraycopy(base.ids, 0, ids, 0, pos);
+        System.arraycopy(base.starts, 0, starts, 0, pos);
+        System.arraycopy(base.ends, 0, ends, 0, pos);
+        ids[pos] = interval.id();
+        starts[pos] = interval.start();
+        ends[pos] = interval.end();
+        System.arraycopy(base.ids, pos, ids, pos + 1, length - pos);
+        System.arraycopy(base.starts, pos, starts, pos + 1, length - pos);
+        System.arraycopy(base.ends, pos, ends, pos + 1, length - pos);
+        return new IntervalSet(ids, starts, ends);
+    }
+
+    IntervalSet without(long id) {
+        if (id == NO_ID) {
+            return this;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                int length = ids.length - 1;
+                long[] ids = new long[length];
+                int[] starts = new int[length];
+                int[] ends = new int[length];
+                System.arraycopy(this.ids, 0, ids, 0, i);
+                System.arraycopy(this.starts, 0, starts, 0, i);
+                System.arraycopy(this.ends, 0, ends, 0, i);
+                System.arraycopy(this.ids, i + 1, ids, i, length - i);
+                System.arraycopy(this.starts, i + 1, starts, i, length - i);
+                System.arraycopy(this.ends, i + 1, ends, i, length - i);
+                return new IntervalSet(ids, starts, ends);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns a copy without the intervals ending before the epoch day {@code day}, or this set if there are none.
+     */
+    IntervalSet withoutEndingBefore(int day) {
+        int kept = 0;
+        for (int end : ends) {
+            if (end >= day) {
+                kept++;
+            }
+        }
+        if (kept == ends.length) {
+            return this;
+        }
+        long[] ids = new long[kept];
+        int[] starts = new int[kept];
+        int[] ends = new int[kept];
+        for (int i = 0, j = 0; i < this.ends.length; i++) {
+            if (this.ends[i] >= day) {
+                ids[j] = this.ids[i];
+                starts[j] = this.starts[i];
+                ends[j++] = this.ends[i];
+            }
+        }
+        return new IntervalSet(ids, starts, ends);
+    }
+
+    /**
+     * Finds an interval overlapping the epoch days {@code [start, end]} (both inclusive), skipping the one
+     * with {@code ignoreId} unless it is {@code null}, and passes the number of intervals examined on the way
+     * to {@code scanned}.
+     *
+     * @return the position of the match, for {@link #idAt}, or {@code -1}
+     */
+    int probe(int start, int end, Long ignoreId, IntConsumer scanned) {
+        // a stored NO_ID is a real interval and must not be mistaken for an absent ignoreId
+        boolean ignoring = ignoreId != null;
+        long ignored = ignoring ? ignoreId : 0;
+        int from = lastStartingOnOrBefore(end);
+        int i = from;
+        for (; i >= 0 && maxEndUpTo[i] >= start; i--) {
+            // starts[i] <= end holds for every position walked, so only the end needs checking
+            if (ends[i] >= start & !(ignoring & ids[i] == ignored)) {
+                scanned.accept(from - i + 1);
+                return i;
+            }
+        }
+        scanned.accept(from - i);
+        return -1;
+    }
+
+    /**
+     * Finds the first interval, in start order, accepted by {@code test}, looking at every interval.
+     *
+     * @return the position of the match, for {@link #idAt}, or {@code -1}
+     */
+    int find(DayRangeTest test) {
+        for (int i = 0; i < starts.length; i++) {
+            if (test.test(starts[i], ends[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** The id of the interval at {@code position}, or {@code null} if it was stored without one. */
+    Long idAt(int position) {
+        return ids[position] == NO_ID ? null : ids[position];
+    }
+
+    /**
+     * Sets, in {@code days}, bit {@code d - from} for every epoch day {@code d} of {@code [from, to]} covered
+     * by an interval.
+     */
+    void markOverlapping(int from, int to, BitSet days) {
+        for (int i = lastStartingOnOrBefore(to); i >= 0 && maxEndUpTo[i] >= from; i--) {
+            if (ends[i] >= from) {
+                days.set(Math.max(starts[i], from) - from, Math.min(ends[i], to) - from + 1);
+            }
+        }
+    }
+
+    private int lastStartingOnOrBefore(int day) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] > day) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return high;
+    }
+
+    private int insertionPoint(int start, int end) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < start || (starts[mid] == start && ends[mid] < end)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static long id(Long id) {
+        return id == null ? NO_ID : id;
+    }
+
+    static int epochDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    @FunctionalInterface
+    interface DayRangeTest {
+        boolean test(int start, int end);
+    }
+
+    /**
+     * An interval as handed to the set, with its dates already converted to epoch days.
+     */
+    record Interval(long id, int start, int end) {
+
+        static Interval of(Long id, LocalDate start, LocalDate end) {
+            Objects.requireNonNull(start, "start");
+            Objects.requireNonNull(end, "end");
+            return new Interval(IntervalSet.id(id), epochDay(start), epochDay(end));
+        }
+    }
+}
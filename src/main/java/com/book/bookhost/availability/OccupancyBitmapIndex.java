@@ -0,0 +1,275 @@
+package com.book.bookhost.availability;
+
+import com.book.bookhost.concurrency.PropertyLockManager;
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockRuleRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.routing.ReplicaRouting;
+import com.book.bookhost.util.DateUtils;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted occupancy index answering "which properties are free between X and Y" across all properties.
+ * <p>
+ * Every property gets a dense ordinal, and every calendar day maps to a compressed bitmap of the ordinals
+ * occupied on that day by a non-canceled booking or a block. A range query ORs the bitmaps of the requested
+ * days and subtracts the result from the set of known properties. Recurring block rules are not painted
+ * onto days; each query tests every rule against the requested range in constant time instead. The index is
+ * rebuilt from the database when the application starts and then follows the booking, block and block rule
+ * change events.
+ */
+@Component
+public class OccupancyBitmapIndex {
+
+    private final BookingRepository bookingRepository;
+    private final BlockingRepository blockRepository;
+    private final BlockRuleRepository blockRuleRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // all guarded by lock
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> propertyIds = new ArrayList<>();
+    private final RoaringBitmap knownProperties = new RoaringBitmap();
+    private final Map<Integer, RoaringBitmap> occupiedByDay = new HashMap<>();
+    private final Map<String, Map<String, DayRange>> rangesByProperty = new HashMap<>();
+    private final Map<Long, Rule> rules = new HashMap<>();
+
+    public OccupancyBitmapIndex(BookingRepository bookingRepository, BlockingRepository blockRepository,
+                                BlockRuleRepository blockRuleRepository) {
+        this.bookingRepository = bookingRepository;
+        this.blockRepository = blockRepository;
+        this.blockRuleRepository = blockRuleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            propertyIds.clear();
+            knownProperties.clear();
+            occupiedByDay.clear();
+            rangesByProperty.clear();
+            rules.clear();
+
+            // later changes arrive as events, so the starting state has to be the primary's
+            ReplicaRouting.onPrimary(() -> {
+                LocalDate today = DateUtils.today();
+                bookingRepository.findDistinctPropertyIds().forEach(this::register);
+                blockRepository.findDistinctPropertyIds().forEach(this::register);
+                for (Booking booking : bookingRepository.findAllByStatusNotEndingOnOrAfter(BookingStatus.CANCELED, today)) {
+                    put(booking.getPropertyId(), bookingKey(booking.getId()), DayRange.of(booking.getStartDate(), booking.getEndDate()));
+                }
+                for (Block block : blockRepository.findAllEndingOnOrAfter(today)) {
+                    put(block.getPropertyId(), blockKey(block.getId()), DayRange.of(block.getStartDate(), block.getEndDate()));
+                }
+                for (BlockRule rule : blockRuleRepository.findAllEndingOnOrAfter(today)) {
+                    rules.put(rule.getId(), new Rule(register(rule.getPropertyId()), rule.toRecurrence()));
+                }
+                return null;
+            });
+            occupiedByDay.values().forEach(RoaringBitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the known properties with no booking, block or block rule occurrence on any day of
+     * {@code [from, to]}, in ordinal order, at most {@code limit} of them.
+     */
+    public FreeProperties findFreeProperties(LocalDate from, LocalDate to, int limit) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> days = new ArrayList<>();
+            for (int day = (int) from.toEpochDay(); day <= (int) to.toEpochDay(); day++) {
+                RoaringBitmap occupied = occupiedByDay.get(day);
+                if (occupied != null) {
+                    days.add(occupied);
+                }
+            }
+            RoaringBitmap occupied = days.isEmpty()
+                    ? new RoaringBitmap()
+                    : FastAggregation.or(days.toArray(new RoaringBitmap[0]));
+            RoaringBitmap free = RoaringBitmap.andNot(knownProperties, occupied);
+            for (Rule rule : rules.values()) {
+                if (free.contains(rule.ordinal()) && rule.recurrence().overlaps(from, to)) {
+                    free.remove(rule.ordinal());
+                }
+            }
+
+            List<String> result = new ArrayList<>(Math.min(limit, free.getCardinality()));
+            IntIterator it = free.getIntIterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(propertyIds.get(it.next()));
+            }
+            return new FreeProperties(free.getCardinality(), result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the days before today and the bookings, blocks and rules that ended before it, which no query
+     * can reach any more.
+     */
+    public void pruneEnded() {
+        LocalDate today = DateUtils.today();
+        int todayDay = (int) today.toEpochDay();
+        lock.writeLock().lock();
+        try {
+            occupiedByDay.keySet().removeIf(day -> day < todayDay);
+            for (Iterator<Map<String, DayRange>> it = rangesByProperty.values().iterator(); it.hasNext(); ) {
+                Map<String, DayRange> ranges = it.next();
+                ranges.values().removeIf(range -> range.last() < todayDay);
+                if (ranges.isEmpty()) {
+                    it.remove();
+                }
+            }
+            rules.values().removeIf(rule -> rule.recurrence().lastEndDate().isBefore(today));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.bookingId() == null) {
+            return;
+        }
+        String key = bookingKey(event.bookingId());
+        DayRange range = event.status() == BookingStatus.CANCELED
+                ? null
+                : DayRange.of(event.startDate(), event.endDate());
+        apply(event.previousPropertyId(), event.propertyId(), key, range);
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockChanged(BlockChangedEvent event) {
+        if (event.blockId() == null) {
+            return;
+        }
+        String key = blockKey(event.blockId());
+        DayRange range = event.type() == ChangeType.DELETED
+                ? null
+                : DayRange.of(event.startDate(), event.endDate());
+        apply(event.previousPropertyId(), event.propertyId(), key, range);
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockRuleChanged(BlockRuleChangedEvent event) {
+        if (event.ruleId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.type() == ChangeType.DELETED) {
+                rules.remove(event.ruleId());
+            } else {
+                rules.put(event.ruleId(), new Rule(register(event.propertyId()), event.recurrence()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(String previousPropertyId, String propertyId, String key, DayRange range) {
+        lock.writeLock().lock();
+        try {
+            if (previousPropertyId != null && !previousPropertyId.equals(propertyId)) {
+                put(previousPropertyId, key, null);
+            }
+            put(propertyId, key, range);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // sets (or with a null range removes) one booking/block of a property and repaints the affected days
+    private void put(String propertyId, String key, DayRange range) {
+        int ordinal = register(propertyId);
+        Map<String, DayRange> ranges = rangesByProperty.computeIfAbsent(propertyId, id -> new HashMap<>());
+        DayRange previous = range == null ? ranges.remove(key) : ranges.put(key, range);
+        if (previous != null) {
+            for (int day = previous.first(); day <= previous.last(); day++) {
+                RoaringBitmap occupied = occupiedByDay.get(day);
+                if (occupied != null) {
+                    occupied.remove(ordinal);
+                }
+            }
+            // other bookings/blocks of the property may still cover some of those days
+            for (DayRange other : ranges.values()) {
+                if (other.first() <= previous.last() && other.last() >= previous.first()) {
+                    mark(ordinal, Math.max(other.first(), previous.first()), Math.min(other.last(), previous.last()));
+                }
+            }
+        }
+        if (range != null) {
+            mark(ordinal, range.first(), range.last());
+        }
+    }
+
+    private void mark(int ordinal, int firstDay, int lastDay) {
+        for (int day = firstDay; day <= lastDay; day++) {
+            occupiedByDay.computeIfAbsent(day, d -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private int register(String propertyId) {
+        Integer ordinal = ordinals.get(propertyId);
+        if (ordinal == null) {
+            ordinal = propertyIds.size();
+            ordinals.put(propertyId, ordinal);
+            propertyIds.add(propertyId);
+            knownProperties.add(ordinal);
+        }
+        return ordinal;
+    }
+
+    private static String bookingKey(Long id) {
+        return "booking:" + id;
+    }
+
+    private static String blockKey(Long id) {
+        return "block:" + id;
+    }
+
+    public record FreeProperties(int total, List<String> propertyIds) {}
+
+    private record Rule(int ordinal, Recurrence recurrence) {}
+
+    private record DayRange(int first, int last) {
+
+        static DayRange of(LocalDate start, LocalDate end) {
+            return new DayRange((int) start.toEpochDay(), (int) end.toEpochDay());
+        }
+    }
+}
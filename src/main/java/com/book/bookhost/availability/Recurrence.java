@@ -0,0 +1,114 @@
+package com.book.bookhost.availability;
+
+import com.book.bookhost.model.RecurrenceFrequency;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Occurrences of a recurring block, computed on demand.
+ * <p>
+ * Occurrence {@code k} starts {@code k * interval} weeks, months or years after the first one and lasts as
+ * many days as the first. Months and years are always counted from the first start, so a rule starting on
+ * the 31st falls on the last day of shorter months and returns to the 31st after them. The last occurrence
+ * is the last one starting on or before {@code until}.
+ * <p>
+ * An overlap check computes the index of the first occurrence that can still reach the requested range and
+ * looks at that occurrence alone, so it costs the same however many occurrences the rule has.
+ */
+public final class Recurrence {
+
+    private final long id;
+    private final LocalDate firstStart;
+    private final int firstStartDay;
+    private final int length;
+    private final RecurrenceFrequency frequency;
+    private final int interval;
+    private final long lastIndex;
+
+    private Recurrence(long id, LocalDate firstStart, int length, RecurrenceFrequency frequency, int interval,
+                       LocalDate until) {
+        this.id = id;
+        this.firstStart = firstStart;
+        this.firstStartDay = IntervalSet.epochDay(firstStart);
+        this.length = length;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.lastIndex = firstStartingOnOrAfter(IntervalSet.epochDay(until) + 1) - 1;
+    }
+
+    public static Recurrence of(Long id, LocalDate start, LocalDate end, RecurrenceFrequency frequency, int interval,
+                                LocalDate until) {
+        Objects.requireNonNull(frequency, "frequency");
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be at least 1");
+        }
+        if (end.isBefore(start) || until.isBefore(start)) {
+            throw new IllegalArgumentException("end and until must not be before start");
+        }
+        int length = IntervalSet.epochDay(end) - IntervalSet.epochDay(start) + 1;
+        return new Recurrence(IntervalSet.id(id), start, length, frequency, interval, until);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public LocalDate lastEndDate() {
+        return LocalDate.ofEpochDay(startOf(lastIndex) + length - 1L);
+    }
+
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        return overlaps(IntervalSet.epochDay(start), IntervalSet.epochDay(end));
+    }
+
+    /**
+     * Whether an occurrence covers a day of the epoch days {@code [start, end]}.
+     */
+    boolean overlaps(int start, int end) {
+        // the first occurrence ending on or after start; any later one starts later still
+        long k = firstStartingOnOrAfter(start - length + 1);
+        return k <= lastIndex && startOf(k) <= end;
+    }
+
+    /**
+     * Sets, in {@code days}, bit {@code d - from} for every epoch day {@code d} of {@code [from, to]} covered
+     * by an occurrence.
+     */
+    void markOverlapping(int from, int to, BitSet days) {
+        for (long k = firstStartingOnOrAfter(from - length + 1); k <= lastIndex; k++) {
+            int start = startOf(k);
+            if (start > to) {
+                return;
+            }
+            days.set(Math.max(start, from) - from, Math.min(start + length - 1, to) - from + 1);
+        }
+    }
+
+    private int startOf(long k) {
+        return switch (frequency) {
+            case WEEKLY -> Math.toIntExact(firstStartDay + 7L * interval * k);
+            case MONTHLY -> IntervalSet.epochDay(firstStart.plusMonths(interval * k));
+            case YEARLY -> IntervalSet.epochDay(firstStart.plusYears(interval * k));
+        };
+    }
+
+    // the smallest k >= 0 whose occurrence starts on or after the epoch day
+    private long firstStartingOnOrAfter(int day) {
+        if (day <= firstStartDay) {
+            return 0;
+        }
+        long k = switch (frequency) {
+            case WEEKLY -> -Math.floorDiv(firstStartDay - (long) day, 7L * interval);
+            case MONTHLY -> ChronoUnit.MONTHS.between(firstStart, LocalDate.ofEpochDay(day)) / interval;
+            case YEARLY -> ChronoUnit.YEARS.between(firstStart, LocalDate.ofEpochDay(day)) / interval;
+        };
+        // a month-end clamp can leave the estimate one step short
+        while (startOf(k) < day) {
+            k++;
+        }
+        return k;
+    }
+}
@@ -0,0 +1,57 @@
+package com.book.bookhost.cache;
+
+import com.book.bookhost.event.BlockChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-property version of the committed blocks, behind the ETag of {@code GET /api/blocks/{propertyId}}.
+ * <p>
+ * Every committed block change takes the next value of one sequence shared by all properties and stores it as
+ * the version of the properties it touched. Versions live in memory only, so every tag also carries the start
+ * time of this instance: a tag handed out before a restart can never match one handed out after it. At most
+ * {@code bookhost.cache.blocks.etag-maximum-size} properties keep their own version; a property dropped beyond
+ * that answers with the highest version dropped so far, which is at least its own last one, so its tag may
+ * change without a change to its blocks but never stays the same across one. A version moves once the changing
+ * transaction has committed, so a tag read before the blocks themselves is never newer than the blocks it is
+ * sent with.
+ */
+@Component
+public class BlockChangeCounter {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    // raised while an entry is evicted, before the property reads as absent
+    private final AtomicLong evictedUpTo = new AtomicLong();
+    private final Cache<String, Long> versions;
+
+    public BlockChangeCounter(@Value("${bookhost.cache.blocks.etag-maximum-size:100000}") long maximumSize) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .<String, Long>evictionListener((propertyId, version, cause) ->
+                        evictedUpTo.accumulateAndGet(version, Math::max))
+                .build();
+    }
+
+    public String etag(String propertyId) {
+        Long version = versions.getIfPresent(propertyId);
+        return "\"" + epoch + "-" + (version == null ? evictedUpTo.get() : version) + "\"";
+    }
+
+    public void changed(String propertyId) {
+        versions.asMap().merge(propertyId, sequence.incrementAndGet(), Math::max);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockChanged(BlockChangedEvent event) {
+        changed(event.propertyId());
+        if (event.previousPropertyId() != null && !event.previousPropertyId().equals(event.propertyId())) {
+            changed(event.previousPropertyId());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.book.bookhost.cache;
+
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.routing.ReplicaRouting;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of bookings by id, in front of {@code BookingService.getBooking}.
+ * <p>
+ * Every booking change evicts its entry once the writing transaction has committed, which happens before
+ * the write call returns to its caller. A load racing with that commit cannot leave the old state behind:
+ * the eviction waits for an in-flight load of the same id and removes its result.
+ * <p>
+ * A load served by the read replica may still miss a change whose eviction has already happened, so such
+ * entries only live for {@code bookhost.replica.stickiness}, the lag the replica is allowed.
+ * <p>
+ * Bookings are mutable entities, so the cache keeps its own copy of what was loaded and hands every caller
+ * a fresh copy of it; a caller changing its booking changes neither the cache nor anyone else's result.
+ */
+@Component
+public class BookingCache {
+
+    private final Cache<Long, Entry> cache;
+
+    public BookingCache(@Value("${bookhost.cache.bookings.maximum-size:10000}") long maximumSize,
+                        @Value("${bookhost.cache.bookings.expire-after-write:5m}") Duration expireAfterWrite,
+                        @Value("${bookhost.replica.stickiness:5s}") Duration replicaExpireAfterWrite,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.<Long, Entry>writing((id, entry) ->
+                        entry.fromReplica() ? replicaExpireAfterWrite : expireAfterWrite))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "bookings");
+    }
+
+    public Booking get(Long id, Function<Long, Booking> loader) {
+        Entry entry = cache.get(id, key -> new Entry(copyOf(loader.apply(key)), ReplicaRouting.isReplicaTransaction()));
+        return copyOf(entry.booking());
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.bookingId() != null) {
+            cache.invalidate(event.bookingId());
+        }
+    }
+
+    private static Booking copyOf(Booking booking) {
+        Booking copy = new Booking(booking.getGuestName(), booking.getGuestEmail(), booking.getPropertyId(),
+                booking.getStartDate(), booking.getEndDate(), booking.getStatus());
+        copy.setId(booking.getId());
+        copy.setVersion(booking.getVersion());
+        return copy;
+    }
+
+    private record Entry(Booking booking, boolean fromReplica) {
+    }
+}
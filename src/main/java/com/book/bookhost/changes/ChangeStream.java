@@ -0,0 +1,385 @@
+package com.book.bookhost.changes;
+
+import com.book.bookhost.dto.ChangeNotification;
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Pushes committed booking, block and block rule changes to Server-Sent Events subscribers, either all of them
+ * or those of one property.
+ * <p>
+ * The committing thread only appends the change to each matching subscriber's bounded buffer and, if no
+ * drain is pending for that subscriber, hands one to a small pool of sender threads; it never writes to a
+ * connection. A subscriber whose buffer fills up has fallen too far behind and is disconnected, so it can
+ * neither hold memory nor slow anyone else down. Subscriptions are servlet async requests and hold no
+ * request thread while idle. A heartbeat comment is queued periodically so dead connections are noticed.
+ * <p>
+ * Writes to a connection block, so each has a deadline: a subscriber whose write has not returned within
+ * {@code bookhost.changes.send-timeout} is disconnected as stalled, and the pool gets an extra thread for as long
+ * as the stuck write holds its own, so the stalled connection cannot take delivery away from the others. The write
+ * itself is freed when the container's write timeout fails it.
+ */
+@Slf4j
+@Component
+public class ChangeStream {
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int maxReplacedSenders;
+    private final Executor senders;
+    private final LongSupplier clock;
+
+    private final Set<Subscriber> allProperties = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscriber>> byProperty = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    // guarded by senders; threads added to the pool in place of ones held by stalled writes
+    private int replacedSenders;
+
+    private final Counter delivered;
+    private final Counter slowDisconnects;
+    private final Counter errorDisconnects;
+    private final Counter stalledDisconnects;
+
+    @Autowired
+    public ChangeStream(@Value("${bookhost.changes.buffer-size:256}") int bufferSize,
+                        @Value("${bookhost.changes.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${bookhost.changes.timeout:1h}") Duration timeout,
+                        @Value("${bookhost.changes.sender-threads:8}") int senderThreads,
+                        @Value("${bookhost.changes.send-timeout:10s}") Duration sendTimeout,
+                        @Value("${bookhost.changes.max-replaced-senders:64}") int maxReplacedSenders,
+                        MeterRegistry meterRegistry) {
+        this(bufferSize, maxSubscribers, timeout, sendTimeout, maxReplacedSenders,
+                new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "bookhost-changes");
+                            thread.setDaemon(true);
+                            return thread;
+                        }),
+                meterRegistry, System::nanoTime);
+    }
+
+    ChangeStream(int bufferSize, int maxSubscribers, Duration timeout, Duration sendTimeout, int maxReplacedSenders,
+                 Executor senders, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxReplacedSenders = maxReplacedSenders;
+        this.senders = senders;
+        this.clock = clock;
+        this.delivered = Counter.builder("bookhost.changes.delivered")
+                .description("Change notifications written to subscribers")
+                .register(meterRegistry);
+        this.slowDisconnects = disconnectCounter(meterRegistry, "slow");
+        this.errorDisconnects = disconnectCounter(meterRegistry, "error");
+        this.stalledDisconnects = disconnectCounter(meterRegistry, "stalled");
+        Gauge.builder("bookhost.changes.subscribers", subscribers, AtomicInteger::get)
+                .description("Open change stream subscriptions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription to the changes of {@code propertyId}, or of every property when it is {@code null}.
+     */
+    public SseEmitter subscribe(String propertyId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new TooManyRequestsException("Change stream subscriber limit reached", RETRY_AFTER_SECONDS);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, propertyId, bufferSize);
+        if (propertyId == null) {
+            allProperties.add(subscriber);
+        } else {
+            byProperty.compute(propertyId, (id, group) -> {
+                Set<Subscriber> members = group == null ? ConcurrentHashMap.newKeySet() : group;
+                members.add(subscriber);
+                return members;
+            });
+        }
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(error -> unregister(subscriber));
+        // an initial comment commits the response headers, so clients and proxies see the stream open
+        subscriber.heartbeatDue = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.bookingId() != null) {
+            publish(ChangeNotification.of(sequence.incrementAndGet(), event));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockChanged(BlockChangedEvent event) {
+        if (event.blockId() != null) {
+            publish(ChangeNotification.of(sequence.incrementAndGet(), event));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockRuleChanged(BlockRuleChangedEvent event) {
+        if (event.ruleId() != null) {
+            publish(ChangeNotification.of(sequence.incrementAndGet(), event));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookhost.changes.heartbeat:15s}")
+    public void heartbeat() {
+        allProperties.forEach(this::heartbeat);
+        byProperty.values().forEach(group -> group.forEach(this::heartbeat));
+    }
+
+    @Scheduled(fixedDelayString = "${bookhost.changes.stall-check:1s}")
+    public void disconnectStalled() {
+        long now = clock.getAsLong();
+        allProperties.forEach(subscriber -> disconnectIfStalled(subscriber, now));
+        byProperty.values().forEach(group -> group.forEach(subscriber -> disconnectIfStalled(subscriber, now)));
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        allProperties.forEach(subscriber -> subscriber.emitter.complete());
+        byProperty.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        if (senders instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+
+    private void publish(ChangeNotification notification) {
+        allProperties.forEach(subscriber -> offer(subscriber, notification));
+        offerAll(byProperty.get(notification.propertyId()), notification);
+        if (notification.previousPropertyId() != null && !notification.previousPropertyId().equals(notification.propertyId())) {
+            offerAll(byProperty.get(notification.previousPropertyId()), notification);
+        }
+    }
+
+    private void offerAll(Set<Subscriber> group, ChangeNotification notification) {
+        if (group != null) {
+            group.forEach(subscriber -> offer(subscriber, notification));
+        }
+    }
+
+    private void offer(Subscriber subscriber, ChangeNotification notification) {
+        if (!subscriber.queue.offer(notification)) {
+            // a whole buffer behind; the sender thread drops it, as this thread must not wait on its connection
+            subscriber.overflowed = true;
+        }
+        schedule(subscriber);
+    }
+
+    private void heartbeat(Subscriber subscriber) {
+        subscriber.heartbeatDue = true;
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (subscriber.stalled) {
+                    disconnect(subscriber, stalledDisconnects);
+                    return;
+                }
+                if (subscriber.overflowed) {
+                    disconnect(subscriber, slowDisconnects);
+                    return;
+                }
+                ChangeNotification notification = subscriber.queue.poll();
+                if (notification != null) {
+                    send(subscriber, SseEmitter.event()
+                            .id(Long.toString(notification.sequence()))
+                            .name(notification.entity())
+                            .data(notification, MediaType.APPLICATION_JSON));
+                    delivered.increment();
+                } else if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    send(subscriber, SseEmitter.event().comment("heartbeat"));
+                } else {
+                    break;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, or the emitter has already completed
+            log.debug("Dropping change stream subscriber of {}: {}", subscriber.propertyId, e.toString());
+            disconnect(subscriber, errorDisconnects);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // an offer may have landed between the last poll and clearing the flag
+        if (!subscriber.queue.isEmpty() || subscriber.overflowed || subscriber.heartbeatDue) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (subscriber) {
+            subscriber.sending = true;
+            subscriber.sendStartedNanos = clock.getAsLong();
+        }
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sending = false;
+                if (subscriber.replaced) {
+                    subscriber.replaced = false;
+                    removeSender();
+                }
+            }
+        }
+    }
+
+    private void disconnectIfStalled(Subscriber subscriber, long now) {
+        synchronized (subscriber) {
+            if (subscriber.stalled || !subscriber.sending || now - subscriber.sendStartedNanos <= sendTimeoutNanos) {
+                return;
+            }
+            subscriber.stalled = true;
+            subscriber.replaced = addSender();
+        }
+        // the write still holds its thread; the drain completes the emitter once it returns
+        log.debug("Change stream subscriber of {} stalled on a write", subscriber.propertyId);
+        if (unregister(subscriber)) {
+            stalledDisconnects.increment();
+        }
+        subscriber.queue.clear();
+    }
+
+    private boolean addSender() {
+        if (!(senders instanceof ThreadPoolExecutor pool)) {
+            return false;
+        }
+        synchronized (pool) {
+            if (replacedSenders >= maxReplacedSenders) {
+                return false;
+            }
+            replacedSenders++;
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+            pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+            return true;
+        }
+    }
+
+    private void removeSender() {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) senders;
+        synchronized (pool) {
+            replacedSenders--;
+            pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+        }
+    }
+
+    private void disconnect(Subscriber subscriber, Counter reason) {
+        if (unregister(subscriber)) {
+            reason.increment();
+        }
+        subscriber.queue.clear();
+        try {
+            subscriber.emitter.complete();
+        } catch (RuntimeException e) {
+            log.debug("Could not complete change stream subscriber of {}", subscriber.propertyId, e);
+        }
+    }
+
+    // safe to call more than once; true only for the call that removed the subscriber
+    private boolean unregister(Subscriber subscriber) {
+        if (!subscriber.registered.compareAndSet(true, false)) {
+            return false;
+        }
+        if (subscriber.propertyId == null) {
+            allProperties.remove(subscriber);
+        } else {
+            byProperty.computeIfPresent(subscriber.propertyId, (id, group) -> {
+                group.remove(subscriber);
+                return group.isEmpty() ? null : group;
+            });
+        }
+        subscribers.decrementAndGet();
+        return true;
+    }
+
+    private static Counter disconnectCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("bookhost.changes.disconnected")
+                .description("Change stream subscribers dropped by the server")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static final class Subscriber {
+
+        final SseEmitter emitter;
+        final String propertyId;
+        final BlockingQueue<ChangeNotification> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean registered = new AtomicBoolean(true);
+        volatile boolean overflowed;
+        volatile boolean heartbeatDue;
+        // guarded by the subscriber
+        boolean sending;
+        long sendStartedNanos;
+        volatile boolean stalled;
+        boolean replaced;
+
+        Subscriber(SseEmitter emitter, String propertyId, int bufferSize) {
+            this.emitter = emitter;
+            this.propertyId = propertyId;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.book.bookhost.concurrency;
+
+import com.book.bookhost.exception.ConflictException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serialises writes per property with a fixed table of striped locks keyed by {@code propertyId}.
+ * <p>
+ * Writes to the same property queue up behind each other, so a check-then-insert can no longer interleave
+ * with another one; writes to properties on different stripes run fully in parallel. Locks taken inside a
+ * transaction are held until it completes, i.e. until after the commit and the after-commit listeners
+ * that update the availability indexes have run. Those listeners are ordered with {@link #INDEX_ORDER}, ahead
+ * of the unlock, which Spring would otherwise run first as it was registered first at the same order.
+ */
+@Component
+public class PropertyLockManager {
+
+    /**
+     * Order of the after-commit listeners that must see a change before the next writer of its property.
+     */
+    public static final int INDEX_ORDER = 0;
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public PropertyLockManager(@Value("${bookhost.locks.stripes:1024}") int stripes,
+                               @Value("${bookhost.locks.timeout-ms:5000}") long timeoutMillis) {
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Locks the stripes of the given properties until the current transaction completes. Stripes are
+     * always taken in ascending order so that multi-property callers cannot deadlock each other.
+     * Outside a transaction the locks are released straight away, which only waits out in-flight writers.
+     */
+    public void lockForTransaction(String... propertyIds) {
+        int[] indexes = Arrays.stream(propertyIds)
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        List<ReentrantLock> acquired = new ArrayList<>(indexes.length);
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new ConflictException("Property is busy with concurrent changes, please retry");
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            unlock(acquired);
+            throw new ConflictException("Interrupted while waiting for concurrent changes on the property");
+        } catch (RuntimeException ex) {
+            unlock(acquired);
+            throw ex;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.LOWEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(acquired);
+                }
+            });
+        } else {
+            unlock(acquired);
+        }
+    }
+
+    int stripeOf(String propertyId) {
+        int h = propertyId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), stripes.length);
+    }
+
+    private static void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.book.bookhost.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes {@link LocalDate} as its epoch day, a small integer, instead of an ISO string. Registered on the
+ * binary mappers only; reading also accepts ISO strings.
+ */
+public class EpochDayModule extends SimpleModule {
+
+    public EpochDayModule() {
+        super("EpochDayModule");
+        addSerializer(LocalDate.class, new StdScalarSerializer<>(LocalDate.class) {
+            @Override
+            public void serialize(LocalDate value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                generator.writeNumber(value.toEpochDay());
+            }
+        });
+        addDeserializer(LocalDate.class, new StdScalarDeserializer<>(LocalDate.class) {
+            @Override
+            public LocalDate deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                    return LocalDate.ofEpochDay(parser.getLongValue());
+                }
+                if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                    return LocalDate.parse(parser.getText().trim());
+                }
+                return (LocalDate) context.handleUnexpectedToken(LocalDate.class, parser);
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.book.bookhost.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Second-level and query cache regions used by Hibernate, sized from {@code bookhost.cache.blocks.*}.
+ * <p>
+ * Block entities live in {@link #BLOCK_REGION}; the per-property block queries of {@code BlockingRepository}
+ * keep their result id lists in {@link #BLOCKS_BY_PROPERTY_REGION}. Hibernate marks the blk_blocks table
+ * as updated on every block write, so cached query results are invalidated on commit of any block change.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String BLOCK_REGION = "blocks";
+    public static final String BLOCKS_BY_PROPERTY_REGION = "blocks-by-property";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${bookhost.cache.blocks.entity-maximum-size:50000}") long entityMaximumSize,
+            @Value("${bookhost.cache.blocks.query-maximum-size:10000}") long queryMaximumSize,
+            @Value("${bookhost.cache.blocks.expire-after-write:30m}") Duration expireAfterWrite,
+            @Value("${bookhost.cache.blocks.timestamps-maximum-size:1000}") long timestampsMaximumSize) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        createIfAbsent(cacheManager, BLOCK_REGION, entityMaximumSize, expireAfterWrite);
+        createIfAbsent(cacheManager, BLOCKS_BY_PROPERTY_REGION, queryMaximumSize, expireAfterWrite);
+        // table timestamps must outlive every cached query result, so they never expire
+        createIfAbsent(cacheManager, UPDATE_TIMESTAMPS_REGION, timestampsMaximumSize, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String region, long maximumSize, Duration expireAfterWrite) {
+        if (cacheManager.getCache(region) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        if (expireAfterWrite != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(region, configuration);
+    }
+}
@@ -0,0 +1,98 @@
+package com.book.bookhost.config;
+
+import com.book.bookhost.routing.ReplicaAwareJpaDialect;
+import com.book.bookhost.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+/**
+ * With {@code bookhost.replica.enabled=true}, read-only transactions read from a replica pool configured
+ * under {@code bookhost.replica.datasource} and everything else uses the primary from
+ * {@code spring.datasource}.
+ * <p>
+ * The application's {@link DataSource} is then a lazy proxy over {@link ReplicaRoutingDataSource}, which
+ * replaces the pool Spring Boot would otherwise create. The two pools are not injection candidates by type,
+ * so nothing else can pick one by accident. {@code bookhost.replica.schema-locations}, when set, is run
+ * against the replica at startup, for a local replica that starts out empty.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bookhost.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("bookhost.replica.datasource")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("bookhost.replica.datasource.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties properties,
+                                              @Value("${bookhost.replica.schema-locations:}") String[] schemaLocations,
+                                              ResourceLoader resourceLoader) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        if (schemaLocations.length > 0) {
+            ResourceDatabasePopulator schema = new ResourceDatabasePopulator();
+            Arrays.stream(schemaLocations).map(resourceLoader::getResource).forEach(schema::addScript);
+            schema.execute(replica);
+        }
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica));
+    }
+
+    // the settings Spring Boot applies to its own adapter, plus the replica-aware dialect
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties) {
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+
+            private final HibernateJpaDialect dialect = new ReplicaAwareJpaDialect();
+
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return dialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+}
@@ -0,0 +1,25 @@
+package com.book.bookhost.config;
+
+import com.book.bookhost.admission.ClientAdmissionInterceptor;
+import com.book.bookhost.routing.ReadYourWritesInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ClientAdmissionInterceptor clientAdmissionInterceptor;
+    private final ReadYourWritesInterceptor readYourWritesInterceptor;
+
+    public WebConfig(ClientAdmissionInterceptor clientAdmissionInterceptor, ReadYourWritesInterceptor readYourWritesInterceptor) {
+        this.clientAdmissionInterceptor = clientAdmissionInterceptor;
+        this.readYourWritesInterceptor = readYourWritesInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(clientAdmissionInterceptor).addPathPatterns("/api/bookings/**", "/api/blocks/**", "/api/block-rules/**");
+        registry.addInterceptor(readYourWritesInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,44 @@
+package com.book.bookhost.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary alternatives to JSON, picked by the {@code Accept} header: CBOR ({@value #CBOR}) and Smile
+ * ({@value #SMILE}). Both mappers start from Spring Boot's Jackson settings and write dates as epoch days.
+ * <p>
+ * Spring Boot puts converter beans ahead of its defaults, so these replace the converters Spring MVC would
+ * otherwise build with a plain mapper.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String SMILE = "application/x-jackson-smile";
+    // RFC 8742: CBOR items written back to back, used by the export endpoints
+    public static final String CBOR_SEQ = "application/cbor-seq";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory()));
+    }
+
+    public static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        ObjectMapper mapper = builder.factory(factory).build();
+        // registered last, so its LocalDate handlers take precedence over the JavaTimeModule ones
+        return mapper.registerModule(new EpochDayModule());
+    }
+}
@@ -1,12 +1,28 @@
 package com.book.bookhost.controller;
 
+import com.book.bookhost.admission.AdmissionControl;
+import com.book.bookhost.cache.BlockChangeCounter;
+import com.book.bookhost.config.WireFormatConfig;
+import com.book.bookhost.dto.BlockImportResponse;
 import com.book.bookhost.dto.BlockRequest;
+import com.book.bookhost.idempotency.IdempotencyStore;
 import com.book.bookhost.model.Block;
+import com.book.bookhost.service.BlockImportService;
 import com.book.bookhost.service.BlockingService;
+import com.book.bookhost.util.ClientIds;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,19 +30,43 @@ import java.util.List;
 public class BlockController {
 
     private final BlockingService blkService;
+    private final IdempotencyStore idempotencyStore;
+    private final AdmissionControl admissionControl;
+    private final BlockChangeCounter blockChangeCounter;
+    private final BlockImportService importService;
+    private final String clientHeader;
 
-    public BlockController(BlockingService blkService) {
+    public BlockController(BlockingService blkService, IdempotencyStore idempotencyStore, AdmissionControl admissionControl,
+                           BlockChangeCounter blockChangeCounter, BlockImportService importService,
+                           @Value("${bookhost.admission.client-header:X-Client-Id}") String clientHeader) {
        this.blkService = blkService;
+       this.importService = importService;
+       this.idempotencyStore = idempotencyStore;
+       this.admissionControl = admissionControl;
+       this.blockChangeCounter = blockChangeCounter;
+       this.clientHeader = clientHeader;
     }
 
     @PostMapping
-    public ResponseEntity<Block> create(@Valid @RequestBody BlockRequest req) {
-        return ResponseEntity.ok(blkService.createBlock(req));
+    public ResponseEntity<Block> create(@Valid @RequestBody BlockRequest req,
+                                        @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                        HttpServletRequest httpRequest) {
+        return idempotencyStore.execute("blocks", ClientIds.of(httpRequest, clientHeader), idempotencyKey, req,
+                () -> admissionControl.forProperty(req.propertyId(), () -> blkService.createBlock(req)));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BlockImportResponse> importCsv(@RequestParam("file") MultipartFile file) throws IOException {
+        // the servlet container spools the upload to disk; rows are read from it one line at a time
+        try (InputStream csv = file.getInputStream()) {
+            return ResponseEntity.ok(importService.importCsv(csv));
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Block> update(@PathVariable Long id, @Valid @RequestBody BlockRequest req) {
-        return ResponseEntity.ok(blkService.updateBlock(id, req));
+    public ResponseEntity<Block> update(@PathVariable Long id, @Valid @RequestBody BlockRequest req,
+                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok(admissionControl.forProperty(req.propertyId(), () -> blkService.updateBlock(id, req, ifMatch)));
     }
 
     @DeleteMapping("/{id}")
@@ -35,8 +75,13 @@ public class BlockController {
         return ResponseEntity.noContent().build();
     }
 
-    @GetMapping("/{propertyId}")
-    public ResponseEntity<List<Block>> get(@PathVariable String propertyId) {
-        return ResponseEntity.ok(blkService.getBlocking(propertyId));
+    @GetMapping(value = "/{propertyId}", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormatConfig.CBOR, WireFormatConfig.SMILE})
+    public ResponseEntity<List<Block>> get(@PathVariable String propertyId, WebRequest request) {
+        // read before the blocks: a change committing in between can only make the tag older than the body
+        String etag = blockChangeCounter.etag(propertyId);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(blkService.getBlocking(propertyId));
     }
 }
@@ -0,0 +1,40 @@
+package com.book.bookhost.controller;
+
+import com.book.bookhost.admission.AdmissionControl;
+import com.book.bookhost.dto.BlockRuleRequest;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.service.BlockRuleService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/block-rules")
+public class BlockRuleController {
+
+    private final BlockRuleService ruleService;
+    private final AdmissionControl admissionControl;
+
+    public BlockRuleController(BlockRuleService ruleService, AdmissionControl admissionControl) {
+        this.ruleService = ruleService;
+        this.admissionControl = admissionControl;
+    }
+
+    @PostMapping
+    public ResponseEntity<BlockRule> create(@Valid @RequestBody BlockRuleRequest req) {
+        return ResponseEntity.ok(admissionControl.forProperty(req.propertyId(), () -> ruleService.createRule(req)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        ruleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BlockRule>> get(@RequestParam String propertyId) {
+        return ResponseEntity.ok(ruleService.getRules(propertyId));
+    }
+}
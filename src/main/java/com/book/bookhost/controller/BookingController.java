@@ -1,28 +1,61 @@
 package com.book.bookhost.controller;
 
+import com.book.bookhost.admission.AdmissionControl;
+import com.book.bookhost.config.WireFormatConfig;
+import com.book.bookhost.dto.BatchBookingResponse;
 import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.dto.GuestBookingPage;
+import com.book.bookhost.idempotency.IdempotencyStore;
 import com.book.bookhost.model.Booking;
+import com.book.bookhost.service.BookingBatchService;
 import com.book.bookhost.service.BookingService;
+import com.book.bookhost.util.ClientIds;
+import com.book.bookhost.util.ETags;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
 
     private final BookingService service;
+    private final BookingBatchService batchService;
+    private final IdempotencyStore idempotencyStore;
+    private final AdmissionControl admissionControl;
+    private final String clientHeader;
 
-    public BookingController(BookingService service) {
+    public BookingController(BookingService service, BookingBatchService batchService, IdempotencyStore idempotencyStore,
+                             AdmissionControl admissionControl,
+                             @Value("${bookhost.admission.client-header:X-Client-Id}") String clientHeader) {
         this.service = service;
+        this.batchService = batchService;
+        this.idempotencyStore = idempotencyStore;
+        this.admissionControl = admissionControl;
+        this.clientHeader = clientHeader;
     }
 
     @PostMapping
-    public ResponseEntity<Booking> create(@Valid @RequestBody BookingRequest req) {
-        Booking b = service.createBooking(req);
-        return ResponseEntity.ok(b);
+    public ResponseEntity<Booking> create(@Valid @RequestBody BookingRequest req,
+                                          @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                          HttpServletRequest httpRequest) {
+        return idempotencyStore.execute("bookings", ClientIds.of(httpRequest, clientHeader), idempotencyKey, req,
+                () -> admissionControl.forProperty(req.propertyId(), () -> service.createBooking(req)));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchBookingResponse> createBatch(@RequestBody List<BookingRequest> requests) {
+        List<String> propertyIds = requests.stream().filter(Objects::nonNull).map(BookingRequest::propertyId).toList();
+        return ResponseEntity.ok(admissionControl.forProperties(propertyIds, () -> batchService.createBookings(requests)));
     }
 
     @PostMapping("/{id}/cancel")
@@ -33,12 +66,14 @@ public class BookingController {
 
     @PostMapping("/{id}/rebook")
     public ResponseEntity<Booking> rebook(@PathVariable Long id, @Valid @RequestBody BookingRequest req) {
-        return ResponseEntity.ok(service.rebook(id, req));
+        return ResponseEntity.ok(admissionControl.forProperty(req.propertyId(), () -> service.rebook(id, req)));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Booking> update(@PathVariable Long id, @Valid @RequestBody BookingRequest req) {
-        return ResponseEntity.ok(service.updateBooking(id, req));
+    public ResponseEntity<Booking> update(@PathVariable Long id, @Valid @RequestBody BookingRequest req,
+                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Booking updated = admissionControl.forProperty(req.propertyId(), () -> service.updateBooking(id, req, ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
     }
 
     @DeleteMapping("/{id}")
@@ -48,13 +83,25 @@ public class BookingController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Booking> get(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getBooking(id));
+    public ResponseEntity<Booking> get(@PathVariable Long id, WebRequest request) {
+        Booking booking = service.getBooking(id);
+        String etag = ETags.of(booking.getVersion());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(booking);
     }
 
-    @GetMapping("/guestName")
+    @GetMapping(value = "/guestName", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormatConfig.CBOR, WireFormatConfig.SMILE})
     public ResponseEntity<List<Booking>> getActiveBookingByGuestName(@RequestParam String guestName) {
         return ResponseEntity.ok(service.getActiveBookingByGuestName(guestName));
     }
 
+    @GetMapping(value = "/guestName/page", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormatConfig.CBOR, WireFormatConfig.SMILE})
+    public ResponseEntity<GuestBookingPage> getActiveBookingPageByGuestName(@RequestParam String guestName,
+                                                                            @RequestParam(required = false) Long after,
+                                                                            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(service.getActiveBookingPageByGuestName(guestName, after, size));
+    }
+
 }
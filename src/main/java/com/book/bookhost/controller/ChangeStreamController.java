@@ -0,0 +1,25 @@
+package com.book.bookhost.controller;
+
+import com.book.bookhost.changes.ChangeStream;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeStreamController {
+
+    private final ChangeStream changeStream;
+
+    public ChangeStreamController(ChangeStream changeStream) {
+        this.changeStream = changeStream;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) String propertyId) {
+        return changeStream.subscribe(propertyId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.book.bookhost.controller;
+
+import com.book.bookhost.config.WireFormatConfig;
+import com.book.bookhost.dto.ExportFilter;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.service.ExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ExportService exportService;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter cborWriter;
+
+    public ExportController(ExportService exportService, ObjectMapper objectMapper,
+                            MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.exportService = exportService;
+        // one JSON document per line; the separator goes between values, so the last newline is written on close
+        this.ndjsonWriter = objectMapper.writer().withRootValueSeparator("\n");
+        this.cborWriter = cborConverter.getObjectMapper().writer();
+    }
+
+    @GetMapping(value = "/bookings", produces = {MediaType.APPLICATION_NDJSON_VALUE, WireFormatConfig.CBOR_SEQ})
+    public ResponseEntity<StreamingResponseBody> bookings(
+            @RequestParam(required = false) String propertyId,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "true") boolean includeArchived,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        ExportFilter filter = new ExportFilter(propertyId, status, from, to, includeArchived);
+        exportService.validate(filter);
+        boolean cbor = prefersCbor(accept);
+        ObjectWriter writer = cbor ? cborWriter : ndjsonWriter;
+        return stream(cbor, out -> {
+            if (exportService.exportBookings(filter, writer, out) > 0 && !cbor) {
+                out.write('\n');
+            }
+        });
+    }
+
+    @GetMapping(value = "/blocks", produces = {MediaType.APPLICATION_NDJSON_VALUE, WireFormatConfig.CBOR_SEQ})
+    public ResponseEntity<StreamingResponseBody> blocks(
+            @RequestParam(required = false) String propertyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "true") boolean includeArchived,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        ExportFilter filter = new ExportFilter(propertyId, null, from, to, includeArchived);
+        exportService.validate(filter);
+        boolean cbor = prefersCbor(accept);
+        ObjectWriter writer = cbor ? cborWriter : ndjsonWriter;
+        return stream(cbor, out -> {
+            if (exportService.exportBlocks(filter, writer, out) > 0 && !cbor) {
+                out.write('\n');
+            }
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(boolean cbor, StreamingResponseBody body) {
+        MediaType contentType = cbor ? MediaType.parseMediaType(WireFormatConfig.CBOR_SEQ) : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    // NDJSON unless the client names CBOR sequences explicitly
+    private static boolean prefersCbor(String accept) {
+        return accept != null && accept.contains(WireFormatConfig.CBOR_SEQ);
+    }
+}
@@ -0,0 +1,37 @@
+package com.book.bookhost.controller;
+
+import com.book.bookhost.dto.AvailabilityResponse;
+import com.book.bookhost.dto.AvailablePropertiesResponse;
+import com.book.bookhost.service.AvailabilityService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/properties")
+public class PropertyController {
+
+    private final AvailabilityService availabilityService;
+
+    public PropertyController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    @GetMapping("/available")
+    public ResponseEntity<AvailablePropertiesResponse> available(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(availabilityService.findAvailableProperties(from, to, limit));
+    }
+
+    @GetMapping("/{propertyId}/availability")
+    public ResponseEntity<AvailabilityResponse> availability(
+            @PathVariable String propertyId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(availabilityService.getAvailability(propertyId, from, to));
+    }
+}
@@ -0,0 +1,11 @@
+package com.book.bookhost.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AvailabilityResponse(
+        String propertyId,
+        LocalDate from,
+        LocalDate to,
+        List<AvailabilitySpan> spans
+) {}
@@ -0,0 +1,15 @@
+package com.book.bookhost.dto;
+
+import java.time.LocalDate;
+
+public record AvailabilitySpan(
+        LocalDate start,
+        int days,
+        State state
+) {
+
+    public enum State {
+        FREE,
+        BUSY
+    }
+}
@@ -0,0 +1,11 @@
+package com.book.bookhost.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AvailablePropertiesResponse(
+        LocalDate from,
+        LocalDate to,
+        int total,
+        List<String> propertyIds
+) {}
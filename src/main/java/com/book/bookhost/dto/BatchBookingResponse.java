@@ -0,0 +1,15 @@
+package com.book.bookhost.dto;
+
+import java.util.List;
+
+public record BatchBookingResponse(
+        int created,
+        int rejected,
+        List<BatchItemResult> results
+) {
+
+    public static BatchBookingResponse of(List<BatchItemResult> results) {
+        int created = (int) results.stream().filter(r -> r.status() == BatchItemResult.Status.CREATED).count();
+        return new BatchBookingResponse(created, results.size() - created, results);
+    }
+}
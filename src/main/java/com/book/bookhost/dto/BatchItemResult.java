@@ -0,0 +1,24 @@
+package com.book.bookhost.dto;
+
+import com.book.bookhost.model.Booking;
+
+public record BatchItemResult(
+        int index,
+        Status status,
+        Booking booking,
+        String error
+) {
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    public static BatchItemResult created(int index, Booking booking) {
+        return new BatchItemResult(index, Status.CREATED, booking, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, Status.REJECTED, null, error);
+    }
+}
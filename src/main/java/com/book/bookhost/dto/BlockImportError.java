@@ -0,0 +1,7 @@
+package com.book.bookhost.dto;
+
+public record BlockImportError(
+        long line,
+        String propertyId,
+        String error
+) {}
@@ -0,0 +1,15 @@
+package com.book.bookhost.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV block import. {@code errors} holds at most {@code bookhost.import.max-errors} entries,
+ * sorted by line; {@code rejected} counts every rejected row.
+ */
+public record BlockImportResponse(
+        long rows,
+        long created,
+        long rejected,
+        List<BlockImportError> errors,
+        boolean errorsTruncated
+) {}
@@ -0,0 +1,21 @@
+package com.book.bookhost.dto;
+
+import com.book.bookhost.model.RecurrenceFrequency;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.time.LocalDate;
+
+/**
+ * {@code startDate}/{@code endDate} give the first occurrence; {@code interval} defaults to 1.
+ */
+public record BlockRuleRequest(
+        @NotBlank String propertyId,
+        @NotNull LocalDate startDate,
+        @NotNull LocalDate endDate,
+        @NotNull RecurrenceFrequency frequency,
+        @Positive Integer interval,
+        @NotNull LocalDate until,
+        String reason
+) {}
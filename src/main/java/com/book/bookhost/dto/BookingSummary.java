@@ -0,0 +1,15 @@
+package com.book.bookhost.dto;
+
+import com.book.bookhost.model.BookingStatus;
+
+import java.time.LocalDate;
+
+public record BookingSummary(
+        Long id,
+        String guestName,
+        String guestEmail,
+        String propertyId,
+        LocalDate startDate,
+        LocalDate endDate,
+        BookingStatus status
+) {}
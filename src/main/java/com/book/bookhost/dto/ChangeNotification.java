@@ -0,0 +1,50 @@
+package com.book.bookhost.dto;
+
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.model.RecurrenceFrequency;
+
+import java.time.LocalDate;
+
+/**
+ * A committed booking, block or block rule change as pushed to change stream subscribers. Guest details are left
+ * out; subscribers read them from {@code GET /api/bookings/{id}}. {@code status} is only set for bookings, and
+ * {@code frequency}, {@code interval} and {@code until} only for block rules, whose dates are the first occurrence.
+ */
+public record ChangeNotification(
+        long sequence,
+        String entity,
+        ChangeType type,
+        Long id,
+        String propertyId,
+        String previousPropertyId,
+        LocalDate startDate,
+        LocalDate endDate,
+        BookingStatus status,
+        RecurrenceFrequency frequency,
+        Integer interval,
+        LocalDate until
+) {
+
+    public static final String BOOKING = "booking";
+    public static final String BLOCK = "block";
+    public static final String BLOCK_RULE = "block-rule";
+
+    public static ChangeNotification of(long sequence, BookingChangedEvent event) {
+        return new ChangeNotification(sequence, BOOKING, event.type(), event.bookingId(), event.propertyId(),
+                event.previousPropertyId(), event.startDate(), event.endDate(), event.status(), null, null, null);
+    }
+
+    public static ChangeNotification of(long sequence, BlockChangedEvent event) {
+        return new ChangeNotification(sequence, BLOCK, event.type(), event.blockId(), event.propertyId(),
+                event.previousPropertyId(), event.startDate(), event.endDate(), null, null, null, null);
+    }
+
+    public static ChangeNotification of(long sequence, BlockRuleChangedEvent event) {
+        return new ChangeNotification(sequence, BLOCK_RULE, event.type(), event.ruleId(), event.propertyId(), null,
+                event.startDate(), event.endDate(), null, event.frequency(), event.interval(), event.until());
+    }
+}
@@ -0,0 +1,17 @@
+package com.book.bookhost.dto;
+
+import com.book.bookhost.model.BookingStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Rows to export; {@code null} fields do not filter. {@code from} and {@code to} select rows whose dates
+ * overlap that range, and {@code status} applies to bookings only.
+ */
+public record ExportFilter(
+        String propertyId,
+        BookingStatus status,
+        LocalDate from,
+        LocalDate to,
+        boolean includeArchived
+) {}
@@ -0,0 +1,12 @@
+package com.book.bookhost.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of guest bookings; pass {@code nextCursor} back as {@code after} to get the next page.
+ * {@code nextCursor} is null on the last page.
+ */
+public record GuestBookingPage(
+        List<BookingSummary> items,
+        Long nextCursor
+) {}
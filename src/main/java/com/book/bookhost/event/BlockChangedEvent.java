@@ -0,0 +1,25 @@
+package com.book.bookhost.event;
+
+import com.book.bookhost.model.Block;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable snapshot of a block mutation, published by {@code BlockingService} and
+ * delivered to listeners once the surrounding transaction has committed.
+ */
+public record BlockChangedEvent(
+        ChangeType type,
+        Long blockId,
+        String previousPropertyId,
+        String propertyId,
+        LocalDate startDate,
+        LocalDate endDate,
+        String reason
+) {
+
+    public static BlockChangedEvent of(ChangeType type, String previousPropertyId, Block block) {
+        return new BlockChangedEvent(type, block.getId(), previousPropertyId, block.getPropertyId(),
+                block.getStartDate(), block.getEndDate(), block.getReason());
+    }
+}
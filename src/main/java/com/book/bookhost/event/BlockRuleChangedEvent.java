@@ -0,0 +1,31 @@
+package com.book.bookhost.event;
+
+import com.book.bookhost.availability.Recurrence;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.model.RecurrenceFrequency;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable snapshot of a block rule mutation, published by {@code BlockRuleService} and
+ * delivered to listeners once the surrounding transaction has committed.
+ */
+public record BlockRuleChangedEvent(
+        ChangeType type,
+        Long ruleId,
+        String propertyId,
+        LocalDate startDate,
+        LocalDate endDate,
+        RecurrenceFrequency frequency,
+        int interval,
+        LocalDate until,
+        String reason,
+        Recurrence recurrence
+) {
+
+    public static BlockRuleChangedEvent of(ChangeType type, BlockRule rule) {
+        return new BlockRuleChangedEvent(type, rule.getId(), rule.getPropertyId(), rule.getStartDate(),
+                rule.getEndDate(), rule.getFrequency(), rule.getInterval(), rule.getUntilDate(), rule.getReason(),
+                rule.toRecurrence());
+    }
+}
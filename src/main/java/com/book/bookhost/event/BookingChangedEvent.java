@@ -0,0 +1,30 @@
+package com.book.bookhost.event;
+
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable snapshot of a booking mutation, published by {@code BookingService} and
+ * delivered to listeners once the surrounding transaction has committed.
+ */
+public record BookingChangedEvent(
+        ChangeType type,
+        Long bookingId,
+        String previousPropertyId,
+        String propertyId,
+        LocalDate startDate,
+        LocalDate endDate,
+        BookingStatus status,
+        String guestName,
+        String guestEmail,
+        Long version
+) {
+
+    public static BookingChangedEvent of(ChangeType type, String previousPropertyId, Booking booking) {
+        return new BookingChangedEvent(type, booking.getId(), previousPropertyId, booking.getPropertyId(),
+                booking.getStartDate(), booking.getEndDate(), booking.getStatus(),
+                booking.getGuestName(), booking.getGuestEmail(), booking.getVersion());
+    }
+}
@@ -0,0 +1,9 @@
+package com.book.bookhost.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    CANCELED,
+    REBOOKED,
+    DELETED
+}
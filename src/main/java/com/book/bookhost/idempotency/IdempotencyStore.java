@@ -0,0 +1,164 @@
+package com.book.bookhost.idempotency;
+
+import com.book.bookhost.exception.ConflictException;
+import com.book.bookhost.exception.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of create requests sent with an {@value #HEADER} header, so a retried request gets the
+ * original response back instead of running again. Keys are scoped by the client sending them, so one client
+ * can neither replay another's response nor block it by reusing its key.
+ * <p>
+ * Entries are bounded in number and expire {@code bookhost.idempotency.ttl} after they were first seen. The
+ * first request with a key runs the action; duplicates arriving while it is still running wait for its
+ * future rather than touching the database. A failed action is forgotten, so a retry after a timeout or a
+ * rejected request runs again, and reusing a key for a different request body is a conflict. What is kept is a
+ * JSON snapshot of the response, and every replay gets its own copy read from it, so a later change to the
+ * returned entity cannot show up in a replay.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<Key, Entry> entries;
+    private final Duration inFlightWait;
+    private final ObjectMapper objectMapper;
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter coalesced;
+
+    public IdempotencyStore(@Value("${bookhost.idempotency.maximum-size:100000}") long maximumSize,
+                            @Value("${bookhost.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${bookhost.idempotency.in-flight-wait:10s}") Duration inFlightWait,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.inFlightWait = inFlightWait;
+        this.objectMapper = objectMapper;
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency");
+        this.executed = outcomeCounter(meterRegistry, "executed");
+        this.replayed = outcomeCounter(meterRegistry, "replayed");
+        this.coalesced = outcomeCounter(meterRegistry, "coalesced");
+    }
+
+    /**
+     * Runs {@code action} once per {@code scope}, {@code client} and {@code key}, and answers 200 with its result.
+     *
+     * @param client  the client sending the request, as named by {@link com.book.bookhost.util.ClientIds}
+     * @param key     the {@value #HEADER} header, or {@code null} to always run the action
+     * @param request the request body, compared with the body first sent with the key
+     */
+    public <T> ResponseEntity<T> execute(String scope, String client, String key, Object request, Supplier<T> action) {
+        if (key == null) {
+            return ResponseEntity.ok(action.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        Key id = new Key(scope, client, key);
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(id, entry);
+        if (existing != null) {
+            return replay(existing, request);
+        }
+        executed.increment();
+        try {
+            T result = action.get();
+            entry.response().complete(snapshot(result));
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(id, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Entry existing, Object request) {
+        if (!Objects.equals(existing.request(), request)) {
+            throw new ConflictException(HEADER + " was already used for a different request");
+        }
+        (existing.response().isDone() ? replayed : coalesced).increment();
+        try {
+            Snapshot snapshot = existing.response().get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+            return ResponseEntity.ok().header(REPLAYED_HEADER, "true").body((T) restore(snapshot));
+        } catch (ExecutionException e) {
+            // the original request failed; its caller got the same error and its entry is gone
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for a request with this " + HEADER);
+        }
+    }
+
+    private Snapshot snapshot(Object result) {
+        if (result == null) {
+            return new Snapshot(null, null);
+        }
+        try {
+            return new Snapshot(objectMapper.writeValueAsBytes(result), result.getClass());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not keep the response to replay it", e);
+        }
+    }
+
+    private Object restore(Snapshot snapshot) {
+        if (snapshot.body() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(snapshot.body(), snapshot.type());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not replay the stored response", e);
+        }
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("bookhost.idempotency")
+                .description("Requests carrying an Idempotency-Key, by whether they ran, replayed a stored response or joined an in-flight one")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Key(String scope, String client, String key) {
+    }
+
+    private record Entry(Object request, CompletableFuture<Snapshot> response) {
+    }
+
+    private record Snapshot(byte[] body, Class<?> type) {
+    }
+}
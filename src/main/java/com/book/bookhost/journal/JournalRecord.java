@@ -0,0 +1,163 @@
+package com.book.bookhost.journal;
+
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.model.RecurrenceFrequency;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * One booking, block or block rule mutation as stored in the journal and in snapshots.
+ * <p>
+ * A frame is {@code [int payload length][int CRC32C of payload][payload]}. A zero length marks the unwritten,
+ * zero-filled tail of a segment; a length running past the buffer or a checksum mismatch marks a torn write,
+ * and readers stop at either. A booking frame appends the booking's version to the fields shared by all kinds
+ * (frames written before it was added lack it and read as version 0). A rule frame appends its frequency,
+ * interval and until day; {@code startDay}/{@code endDay} are then its first occurrence.
+ */
+record JournalRecord(Kind kind, ChangeType type, long id, String propertyId, int startDay, int endDay,
+                     BookingStatus status, String guestName, String guestEmail, String reason, long version,
+                     RecurrenceFrequency frequency, int interval, int untilDay) {
+
+    enum Kind { BOOKING, BLOCK, RULE }
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final Kind[] KINDS = Kind.values();
+    private static final ChangeType[] CHANGE_TYPES = ChangeType.values();
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+    private static final RecurrenceFrequency[] FREQUENCIES = RecurrenceFrequency.values();
+
+    static JournalRecord of(BookingChangedEvent event) {
+        return new JournalRecord(Kind.BOOKING, event.type(), event.bookingId(), event.propertyId(),
+                (int) event.startDate().toEpochDay(), (int) event.endDate().toEpochDay(), event.status(),
+                event.guestName(), event.guestEmail(), null, event.version() == null ? 0 : event.version(),
+                null, 0, 0);
+    }
+
+    static JournalRecord of(BlockChangedEvent event) {
+        return new JournalRecord(Kind.BLOCK, event.type(), event.blockId(), event.propertyId(),
+                (int) event.startDate().toEpochDay(), (int) event.endDate().toEpochDay(), null,
+                null, null, event.reason(), 0, null, 0, 0);
+    }
+
+    static JournalRecord of(BlockRuleChangedEvent event) {
+        return new JournalRecord(Kind.RULE, event.type(), event.ruleId(), event.propertyId(),
+                (int) event.startDate().toEpochDay(), (int) event.endDate().toEpochDay(), null,
+                null, null, event.reason(), 0, event.frequency(), event.interval(), (int) event.until().toEpochDay());
+    }
+
+    byte[] toFrame() {
+        byte[] property = bytes(propertyId);
+        byte[] name = bytes(guestName);
+        byte[] email = bytes(guestEmail);
+        byte[] why = bytes(reason);
+        int payloadLength = 2 + Long.BYTES + 2 * Integer.BYTES + 1
+                + stringBytes(property) + stringBytes(name) + stringBytes(email) + stringBytes(why)
+                + tailBytes();
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        frame.putInt(payloadLength).putInt(0)
+                .put((byte) kind.ordinal())
+                .put((byte) type.ordinal())
+                .putLong(id)
+                .putInt(startDay)
+                .putInt(endDay)
+                .put((byte) (status == null ? -1 : status.ordinal()));
+        putString(frame, property);
+        putString(frame, name);
+        putString(frame, email);
+        putString(frame, why);
+        if (kind == Kind.BOOKING) {
+            frame.putLong(version);
+        } else if (kind == Kind.RULE) {
+            frame.put((byte) frequency.ordinal()).putInt(interval).putInt(untilDay);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), HEADER_BYTES, payloadLength);
+        frame.putInt(Integer.BYTES, (int) crc.getValue());
+        return frame.array();
+    }
+
+    /**
+     * Reads the frame at the buffer's position and advances past it, or returns {@code null} without
+     * consuming anything when there is no complete, intact frame left.
+     */
+    static JournalRecord readFrame(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int payloadLength = buffer.getInt(start);
+        if (payloadLength <= 0 || payloadLength > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(start + HEADER_BYTES, payloadLength);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+        Kind kind = KINDS[payload.get()];
+        ChangeType type = CHANGE_TYPES[payload.get()];
+        long id = payload.getLong();
+        int startDay = payload.getInt();
+        int endDay = payload.getInt();
+        BookingStatus status = statusOf(payload.get());
+        String propertyId = getString(payload);
+        String guestName = getString(payload);
+        String guestEmail = getString(payload);
+        String reason = getString(payload);
+        JournalRecord record = switch (kind) {
+            case BOOKING -> new JournalRecord(kind, type, id, propertyId, startDay, endDay, status, guestName,
+                    guestEmail, reason, payload.hasRemaining() ? payload.getLong() : 0, null, 0, 0);
+            case BLOCK -> new JournalRecord(kind, type, id, propertyId, startDay, endDay, status, guestName,
+                    guestEmail, reason, 0, null, 0, 0);
+            case RULE -> new JournalRecord(kind, type, id, propertyId, startDay, endDay, status, guestName,
+                    guestEmail, reason, 0, FREQUENCIES[payload.get()], payload.getInt(), payload.getInt());
+        };
+        buffer.position(start + HEADER_BYTES + payloadLength);
+        return record;
+    }
+
+    private int tailBytes() {
+        return switch (kind) {
+            case BOOKING -> Long.BYTES;
+            case BLOCK -> 0;
+            case RULE -> 1 + 2 * Integer.BYTES;
+        };
+    }
+
+    private static BookingStatus statusOf(byte ordinal) {
+        return ordinal < 0 ? null : STATUSES[ordinal];
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringBytes(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package com.book.bookhost.journal;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.availability.Recurrence;
+import com.book.bookhost.cache.BookingCache;
+import com.book.bookhost.repository.BlockRuleRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.routing.ReplicaRouting;
+import com.book.bookhost.util.NameUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restores bookings, blocks and block rules from the {@link MutationJournal} when the application starts on an empty
+ * database, as it does on every restart with the in-memory H2 URL.
+ * <p>
+ * Rows are inserted with their original ids through JDBC batches, bypassing the services, so nothing is
+ * journaled twice; the id sequences are then moved past the restored ids. This runs once every singleton has
+ * been created and before the web server starts, so no request can write alongside the restore or take an id
+ * the sequence is about to pass. The in-memory indexes and the booking cache are then reset, as the restore
+ * publishes no change events for them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bookhost.journal", name = "enabled", havingValue = "true")
+public class JournalReplayer implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 1000;
+    // matches the allocationSize of the pooled entity sequences
+    private static final long SEQUENCE_ALLOCATION = 50;
+
+    private final MutationJournal journal;
+    private final BookingRepository bookingRepository;
+    private final BlockingRepository blockRepository;
+    private final BlockRuleRepository blockRuleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AvailabilityIndex availabilityIndex;
+    private final OccupancyBitmapIndex occupancyIndex;
+    private final BookingCache bookingCache;
+    private final TransactionTemplate transactions;
+    private final Timer replayTime;
+    private final Counter replayedRecords;
+
+    public JournalReplayer(MutationJournal journal, BookingRepository bookingRepository,
+                           BlockingRepository blockRepository, BlockRuleRepository blockRuleRepository,
+                           JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           AvailabilityIndex availabilityIndex, OccupancyBitmapIndex occupancyIndex,
+                           BookingCache bookingCache, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.bookingRepository = bookingRepository;
+        this.blockRepository = blockRepository;
+        this.blockRuleRepository = blockRuleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.availabilityIndex = availabilityIndex;
+        this.occupancyIndex = occupancyIndex;
+        this.bookingCache = bookingCache;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.replayTime = Timer.builder("bookhost.journal.replay")
+                .description("Reading the snapshot and journal tail and restoring the database at startup")
+                .register(meterRegistry);
+        this.replayedRecords = Counter.builder("bookhost.journal.replayed.records")
+                .description("Journal and snapshot records read during startup replay")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            replay();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay the mutation journal", e);
+        }
+    }
+
+    void replay() throws IOException {
+        if (ReplicaRouting.onPrimary(() -> bookingRepository.count() > 0 || blockRepository.count() > 0
+                || blockRuleRepository.count() > 0)) {
+            log.info("Database already holds bookings, blocks or block rules, journal replay skipped");
+            return;
+        }
+        long started = System.nanoTime();
+        JournalState state = journal.readState();
+        transactions.executeWithoutResult(status -> {
+            restoreBookings(state.bookings());
+            restoreBlocks(state.blocks());
+            restoreRules(state.rules());
+        });
+        availabilityIndex.clear();
+        bookingCache.clear();
+        occupancyIndex.rebuild();
+        long elapsedNanos = System.nanoTime() - started;
+        replayTime.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        replayedRecords.increment(state.recordsRead());
+        log.info("Replayed {} journal records into {} bookings, {} blocks and {} block rules in {} ms ({} records/s)",
+                state.recordsRead(), state.bookings().size(), state.blocks().size(), state.rules().size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                elapsedNanos == 0 ? 0 : state.recordsRead() * 1_000_000_000L / elapsedNanos);
+    }
+
+    private void restoreBookings(Collection<JournalRecord> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into bkn_bookings (id, guest_name, guest_name_normalized, guest_email,"
+                        + " property_id, start_date, end_date, status, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                bookings, BATCH_SIZE, (ps, record) -> {
+                    ps.setLong(1, record.id());
+                    ps.setString(2, record.guestName());
+                    ps.setString(3, NameUtils.normalize(record.guestName()));
+                    ps.setString(4, record.guestEmail());
+                    ps.setString(5, record.propertyId());
+                    ps.setObject(6, LocalDate.ofEpochDay(record.startDay()));
+                    ps.setObject(7, LocalDate.ofEpochDay(record.endDay()));
+                    ps.setString(8, record.status().name());
+                    // restoring the version keeps ETags handed out before the restart meaningful
+                    ps.setLong(9, record.version());
+                });
+        restartSequence("bkn_bookings_seq", bookings);
+    }
+
+    private void restoreBlocks(Collection<JournalRecord> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into blk_blocks (id, property_id, start_date, end_date, reason)"
+                        + " values (?, ?, ?, ?, ?)",
+                blocks, BATCH_SIZE, (ps, record) -> {
+                    ps.setLong(1, record.id());
+                    ps.setString(2, record.propertyId());
+                    ps.setObject(3, LocalDate.ofEpochDay(record.startDay()));
+                    ps.setObject(4, LocalDate.ofEpochDay(record.endDay()));
+                    ps.setString(5, record.reason());
+                });
+        restartSequence("blk_blocks_seq", blocks);
+    }
+
+    private void restoreRules(Collection<JournalRecord> rules) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into blk_block_rules (id, property_id, start_date, end_date, frequency,"
+                        + " repeat_interval, until_date, last_end_date, reason) values (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rules, BATCH_SIZE, (ps, record) -> {
+                    LocalDate start = LocalDate.ofEpochDay(record.startDay());
+                    LocalDate end = LocalDate.ofEpochDay(record.endDay());
+                    LocalDate until = LocalDate.ofEpochDay(record.untilDay());
+                    ps.setLong(1, record.id());
+                    ps.setString(2, record.propertyId());
+                    ps.setObject(3, start);
+                    ps.setObject(4, end);
+                    ps.setString(5, record.frequency().name());
+                    ps.setInt(6, record.interval());
+                    ps.setObject(7, until);
+                    ps.setObject(8, Recurrence.of(record.id(), start, end, record.frequency(), record.interval(), until)
+                            .lastEndDate());
+                    ps.setString(9, record.reason());
+                });
+        restartSequence("blk_block_rules_seq", rules);
+    }
+
+    private void restartSequence(String sequence, Collection<JournalRecord> restored) {
+        long maxId = restored.stream().mapToLong(JournalRecord::id).max().orElse(0);
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + SEQUENCE_ALLOCATION + 1));
+    }
+}
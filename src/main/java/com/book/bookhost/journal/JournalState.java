@@ -0,0 +1,56 @@
+package com.book.bookhost.journal;
+
+import com.book.bookhost.event.ChangeType;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latest record per booking, block and block rule, as obtained by replaying a snapshot and the journal after it.
+ * <p>
+ * Appends from different threads need not reach the journal in commit order, so for a booking the record with
+ * the highest version wins, the later one on a tie. Blocks and rules carry no version; their appends are made
+ * while the property lock is still held and so are in commit order. Bookings are never removed, since a
+ * DELETED booking is only a status; a DELETED block or rule is removed.
+ */
+final class JournalState {
+
+    private final Map<Long, JournalRecord> bookings = new LinkedHashMap<>();
+    private final Map<Long, JournalRecord> blocks = new LinkedHashMap<>();
+    private final Map<Long, JournalRecord> rules = new LinkedHashMap<>();
+    private long recordsRead;
+
+    void apply(JournalRecord record) {
+        recordsRead++;
+        if (record.kind() == JournalRecord.Kind.BOOKING) {
+            bookings.merge(record.id(), record, (current, next) -> next.version() >= current.version() ? next : current);
+            return;
+        }
+        Map<Long, JournalRecord> latest = record.kind() == JournalRecord.Kind.RULE ? rules : blocks;
+        if (record.type() == ChangeType.DELETED) {
+            latest.remove(record.id());
+        } else {
+            latest.put(record.id(), record);
+        }
+    }
+
+    Collection<JournalRecord> bookings() {
+        return bookings.values();
+    }
+
+    Collection<JournalRecord> blocks() {
+        return blocks.values();
+    }
+
+    Collection<JournalRecord> rules() {
+        return rules.values();
+    }
+
+    /**
+     * Records read from the snapshot and the journal, before compaction.
+     */
+    long recordsRead() {
+        return recordsRead;
+    }
+}
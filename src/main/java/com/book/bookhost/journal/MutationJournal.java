@@ -0,0 +1,325 @@
+package com.book.bookhost.journal;
+
+import com.book.bookhost.concurrency.PropertyLockManager;
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of committed booking, block and block rule mutations, used to rebuild state after a restart.
+ * <p>
+ * Records are appended to memory-mapped segment files {@code journal-<seq>.log}. Appends only copy bytes
+ * into the mapping; a background task forces the dirty segment to disk every {@code fsync-interval}, so
+ * all appends of that interval share one fsync and at most that interval of mutations can be lost on a
+ * crash. Another task periodically seals the current segment and compacts everything before it into
+ * {@code snapshot-<seq>.bin}, which holds the latest record per booking, block and rule and replaces all
+ * segments below {@code seq}. A restarted journal always writes to a fresh segment, so segments already
+ * on disk are never modified again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bookhost.journal", name = "enabled", havingValue = "true")
+public class MutationJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Lock appendLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter appends;
+    private final Counter appendFailures;
+    private final Timer fsyncs;
+
+    // guarded by appendLock
+    private long segmentSeq;
+    private MappedByteBuffer segment;
+    private boolean changedSinceSnapshot;
+
+    private volatile boolean dirty;
+
+    public MutationJournal(@Value("${bookhost.journal.directory:data/journal}") String directory,
+                           @Value("${bookhost.journal.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${bookhost.journal.fsync-interval:20ms}") Duration fsyncInterval,
+                           @Value("${bookhost.journal.snapshot-interval:10m}") Duration snapshotInterval,
+                           MeterRegistry meterRegistry) throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.appends = Counter.builder("bookhost.journal.appends")
+                .description("Mutations appended to the journal")
+                .register(meterRegistry);
+        this.appendFailures = Counter.builder("bookhost.journal.append.failures")
+                .description("Committed mutations that could not be written to the journal")
+                .register(meterRegistry);
+        this.fsyncs = Timer.builder("bookhost.journal.fsync")
+                .description("Forcing a journal segment to disk, shared by every append since the previous one")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        long lastSnapshot = lastSeq(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        long lastSegment = lastSeq(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        this.changedSinceSnapshot = lastSegment >= lastSnapshot && lastSegment > 0;
+        openSegment(Math.max(Math.max(lastSegment + 1, lastSnapshot), 1));
+
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "bookhost-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long syncMillis = fsyncInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        long snapshotMillis = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.bookingId() != null) {
+            append(JournalRecord.of(event));
+        }
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockChanged(BlockChangedEvent event) {
+        if (event.blockId() != null) {
+            append(JournalRecord.of(event));
+        }
+    }
+
+    @Order(PropertyLockManager.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlockRuleChanged(BlockRuleChangedEvent event) {
+        if (event.ruleId() != null) {
+            append(JournalRecord.of(event));
+        }
+    }
+
+    void append(JournalRecord record) {
+        byte[] frame = record.toFrame();
+        appendLock.lock();
+        try {
+            if (frame.length > segment.remaining()) {
+                if (frame.length > segmentSize) {
+                    throw new IllegalStateException("Journal record of " + frame.length + " bytes exceeds the segment size");
+                }
+                roll();
+            }
+            segment.put(frame);
+            changedSinceSnapshot = true;
+            dirty = true;
+            appends.increment();
+        } catch (IOException | RuntimeException e) {
+            // the transaction has already committed, so the mutation stands; it is only missing from replay
+            appendFailures.increment();
+            log.error("Could not journal {} {} {}", record.type(), record.kind(), record.id(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the current segment to disk if anything was appended since the last call.
+     */
+    void sync() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        MappedByteBuffer current;
+        appendLock.lock();
+        try {
+            current = segment;
+        } finally {
+            appendLock.unlock();
+        }
+        fsyncs.record(() -> {
+            current.force();
+        });
+    }
+
+    /**
+     * Seals the current segment and compacts the latest snapshot and every sealed segment into a new snapshot.
+     */
+    synchronized void snapshot() throws IOException {
+        long upTo;
+        appendLock.lock();
+        try {
+            if (!changedSinceSnapshot) {
+                return;
+            }
+            roll();
+            upTo = segmentSeq;
+            changedSinceSnapshot = false;
+        } finally {
+            appendLock.unlock();
+        }
+
+        JournalState state = readState(upTo);
+        Path temporary = directory.resolve(fileName(SNAPSHOT_PREFIX, upTo, ".tmp"));
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+            for (JournalRecord record : state.bookings()) {
+                out.write(record.toFrame());
+            }
+            for (JournalRecord record : state.blocks()) {
+                out.write(record.toFrame());
+            }
+            for (JournalRecord record : state.rules()) {
+                out.write(record.toFrame());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(fileName(SNAPSHOT_PREFIX, upTo, SNAPSHOT_SUFFIX)),
+                StandardCopyOption.ATOMIC_MOVE);
+
+        for (long seq : seqs(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (seq < upTo) {
+                Files.deleteIfExists(directory.resolve(fileName(SNAPSHOT_PREFIX, seq, SNAPSHOT_SUFFIX)));
+            }
+        }
+        for (long seq : seqs(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (seq < upTo) {
+                Files.deleteIfExists(directory.resolve(fileName(SEGMENT_PREFIX, seq, SEGMENT_SUFFIX)));
+            }
+        }
+        log.info("Journal snapshot {} written: {} bookings, {} blocks, {} block rules", upTo, state.bookings().size(),
+                state.blocks().size(), state.rules().size());
+    }
+
+    /**
+     * Replays the latest snapshot and every sealed segment after it. Appends made since this journal was
+     * opened are not included.
+     */
+    JournalState readState() throws IOException {
+        long upTo;
+        appendLock.lock();
+        try {
+            upTo = segmentSeq;
+        } finally {
+            appendLock.unlock();
+        }
+        return readState(upTo);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        appendLock.lock();
+        try {
+            segment.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private JournalState readState(long upTo) throws IOException {
+        JournalState state = new JournalState();
+        long snapshotSeq = 0;
+        for (long seq : seqs(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (seq <= upTo) {
+                snapshotSeq = seq;
+            }
+        }
+        if (snapshotSeq > 0) {
+            readFrames(directory.resolve(fileName(SNAPSHOT_PREFIX, snapshotSeq, SNAPSHOT_SUFFIX)), state);
+        }
+        for (long seq : seqs(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (seq >= snapshotSeq && seq < upTo) {
+                readFrames(directory.resolve(fileName(SEGMENT_PREFIX, seq, SEGMENT_SUFFIX)), state);
+            }
+        }
+        return state;
+    }
+
+    private static void readFrames(Path file, JournalState state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (JournalRecord record = JournalRecord.readFrame(buffer); record != null; record = JournalRecord.readFrame(buffer)) {
+                state.apply(record);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        segment.force();
+        openSegment(segmentSeq + 1);
+    }
+
+    private void openSegment(long seq) throws IOException {
+        Path file = directory.resolve(fileName(SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segmentSeq = seq;
+    }
+
+    private long lastSeq(String prefix, String suffix) throws IOException {
+        List<Long> seqs = seqs(prefix, suffix);
+        return seqs.isEmpty() ? 0 : seqs.get(seqs.size() - 1);
+    }
+
+    private List<Long> seqs(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String fileName(String prefix, long seq, String suffix) {
+        return String.format("%s%020d%s", prefix, seq, suffix);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Journal snapshot failed, segments are kept until the next attempt", e);
+        }
+    }
+}
@@ -1,19 +1,29 @@
 package com.book.bookhost.model;
 
+import com.book.bookhost.config.HibernateCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "blk_blocks")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.BLOCK_REGION)
+@Table(name = "blk_blocks", indexes = @Index(name = "idx_blk_property_dates", columnList = "property_id, start_date, end_date"))
 public class Block {
 
+    // pooled sequence instead of IDENTITY so inserts can be sent as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blk_blocks_seq")
+    @SequenceGenerator(name = "blk_blocks_seq", sequenceName = "blk_blocks_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "property_id")
     private String propertyId;
+    @Column(name = "start_date")
     private LocalDate startDate;
+    @Column(name = "end_date")
     private LocalDate endDate;
     private String reason;
 
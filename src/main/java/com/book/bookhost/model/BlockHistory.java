@@ -0,0 +1,63 @@
+package com.book.bookhost.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A block moved out of blk_blocks by the archival job, keeping its original id.
+ */
+@Entity
+@Table(name = "blk_blocks_history", indexes = @Index(name = "idx_blkh_property_dates", columnList = "property_id, start_date, end_date"))
+public class BlockHistory {
+
+    @Id
+    private Long id;
+
+    @Column(name = "property_id")
+    private String propertyId;
+    @Column(name = "start_date")
+    private LocalDate startDate;
+    @Column(name = "end_date")
+    private LocalDate endDate;
+    private String reason;
+    @Column(name = "archived_at")
+    private Instant archivedAt;
+
+    protected BlockHistory() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    /**
+     * Detached {@link Block} view of this row, shaped like the live blocks of the API.
+     */
+    public Block toBlock() {
+        Block block = new Block(propertyId, startDate, endDate, reason);
+        block.setId(id);
+        return block;
+    }
+}
@@ -0,0 +1,96 @@
+package com.book.bookhost.model;
+
+import com.book.bookhost.availability.Recurrence;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * A block repeating on a schedule, stored as one row and evaluated by {@link Recurrence} instead of being
+ * expanded into {@link Block} rows. {@code startDate}/{@code endDate} are the first occurrence; later ones
+ * start every {@code interval} {@code frequency} units after it, up to and including {@code untilDate}.
+ */
+@Entity
+@Table(name = "blk_block_rules", indexes = @Index(name = "idx_blkr_property_last_end", columnList = "property_id, last_end_date"))
+public class BlockRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blk_block_rules_seq")
+    @SequenceGenerator(name = "blk_block_rules_seq", sequenceName = "blk_block_rules_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "property_id")
+    private String propertyId;
+    @Column(name = "start_date")
+    private LocalDate startDate;
+    @Column(name = "end_date")
+    private LocalDate endDate;
+    @Enumerated(EnumType.STRING)
+    private RecurrenceFrequency frequency;
+    @Column(name = "repeat_interval")
+    private int interval;
+    @Column(name = "until_date")
+    private LocalDate untilDate;
+    // end of the last occurrence, kept so rules that are over can be skipped by a range probe
+    @Column(name = "last_end_date")
+    private LocalDate lastEndDate;
+    private String reason;
+
+    public BlockRule() {}
+
+    public BlockRule(String propertyId, LocalDate startDate, LocalDate endDate, RecurrenceFrequency frequency,
+                     int interval, LocalDate untilDate, String reason) {
+        this.propertyId = propertyId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.untilDate = untilDate;
+        this.reason = reason;
+        this.lastEndDate = toRecurrence().lastEndDate();
+    }
+
+    public Recurrence toRecurrence() {
+        return Recurrence.of(id, startDate, endDate, frequency, interval, untilDate);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getUntilDate() {
+        return untilDate;
+    }
+
+    public LocalDate getLastEndDate() {
+        return lastEndDate;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
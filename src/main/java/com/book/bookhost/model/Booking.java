@@ -1,27 +1,45 @@
 package com.book.bookhost.model;
 
+import com.book.bookhost.util.NameUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 
 
 @Entity
-@Table(name = "bkn_bookings")
+@Table(name = "bkn_bookings", indexes = {
+        @Index(name = "idx_bkn_property_dates", columnList = "property_id, start_date, end_date"),
+        @Index(name = "idx_bkn_guest_name_norm", columnList = "guest_name_normalized, id")
+})
 public class Booking {
 
+    // pooled sequence instead of IDENTITY so inserts can be sent as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bkn_bookings_seq")
+    @SequenceGenerator(name = "bkn_bookings_seq", sequenceName = "bkn_bookings_seq", allocationSize = 50)
     private Long id;
 
     private String guestName;
+    // lower-cased, trimmed copy of guestName maintained by the constructor and setGuestName
+    @JsonIgnore
+    @Column(name = "guest_name_normalized")
+    private String guestNameNormalized;
     private String guestEmail;
+    @Column(name = "property_id")
     private String propertyId;
+    @Column(name = "start_date")
     private LocalDate startDate;
+    @Column(name = "end_date")
     private LocalDate endDate;
     @Enumerated(EnumType.STRING)
     private BookingStatus status = BookingStatus.ACTIVE;
+    // incremented on every update, served as the ETag of the booking
+    @Version
+    private Long version;
 
     public Booking(String guestName, String guestEmail, String propertyId, LocalDate startDate, LocalDate endDate, BookingStatus status) {
         this.guestName = guestName;
+        this.guestNameNormalized = NameUtils.normalize(guestName);
         this.guestEmail = guestEmail;
         this.propertyId = propertyId;
         this.startDate = startDate;
@@ -46,6 +64,11 @@ public class Booking {
 
     public void setGuestName(String guestName) {
         this.guestName = guestName;
+        this.guestNameNormalized = NameUtils.normalize(guestName);
+    }
+
+    public String getGuestNameNormalized() {
+        return guestNameNormalized;
     }
 
     public String getGuestEmail() {
@@ -87,4 +110,12 @@ public class Booking {
     public void setStatus(BookingStatus status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
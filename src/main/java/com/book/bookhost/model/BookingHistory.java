@@ -0,0 +1,85 @@
+package com.book.bookhost.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A booking moved out of bkn_bookings by the archival job. Rows keep the id they had as a {@link Booking}
+ * and are written only by insert-select, so the entity itself is read-only.
+ */
+@Entity
+@Table(name = "bkn_bookings_history", indexes = {
+        @Index(name = "idx_bknh_guest_name_norm", columnList = "guest_name_normalized, id")
+})
+public class BookingHistory {
+
+    @Id
+    private Long id;
+
+    private String guestName;
+    @Column(name = "guest_name_normalized")
+    private String guestNameNormalized;
+    private String guestEmail;
+    @Column(name = "property_id")
+    private String propertyId;
+    @Column(name = "start_date")
+    private LocalDate startDate;
+    @Column(name = "end_date")
+    private LocalDate endDate;
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+    private Long version;
+    @Column(name = "archived_at")
+    private Instant archivedAt;
+
+    protected BookingHistory() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getGuestName() {
+        return guestName;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    /**
+     * Detached {@link Booking} view of this row, so callers of the booking API cannot tell it was archived.
+     */
+    public Booking toBooking() {
+        Booking booking = new Booking(guestName, guestEmail, propertyId, startDate, endDate, status);
+        booking.setId(id);
+        booking.setVersion(version);
+        return booking;
+    }
+}
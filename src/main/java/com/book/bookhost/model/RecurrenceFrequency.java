@@ -0,0 +1,18 @@
+package com.book.bookhost.model;
+
+public enum RecurrenceFrequency {
+    WEEKLY(7),
+    MONTHLY(28),
+    YEARLY(365);
+
+    // length of the shortest step, which an occurrence must fit into
+    private final int minimumDays;
+
+    RecurrenceFrequency(int minimumDays) {
+        this.minimumDays = minimumDays;
+    }
+
+    public int minimumDays() {
+        return minimumDays;
+    }
+}
@@ -0,0 +1,39 @@
+package com.book.bookhost.repository;
+
+import com.book.bookhost.model.BlockHistory;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface BlockHistoryRepository extends JpaRepository<BlockHistory, Long> {
+
+    List<BlockHistory> findByPropertyId(String propertyId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "blk_blocks_history"))
+    @Query(value = "insert into blk_blocks_history (id, property_id, start_date, end_date, reason, archived_at)"
+            + " select id, property_id, start_date, end_date, reason, :archivedAt from blk_blocks where id in (:ids)",
+            nativeQuery = true)
+    int copyFromBlocks(@Param("ids") List<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    // export, read like BlockingRepository.streamForExport
+    @Query("select h from BlockHistory h where (:propertyId is null or h.propertyId = :propertyId)"
+            + " and (:from is null or h.endDate >= :from) and (:to is null or h.startDate <= :to) order by h.id")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    Stream<BlockHistory> streamForExport(@Param("propertyId") String propertyId, @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+}
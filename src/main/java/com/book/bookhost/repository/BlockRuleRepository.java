@@ -0,0 +1,23 @@
+package com.book.bookhost.repository;
+
+import com.book.bookhost.model.BlockRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BlockRuleRepository extends JpaRepository<BlockRule, Long> {
+
+    List<BlockRule> findByPropertyId(String propertyId);
+
+    // rules with an occurrence ending on or after the date, served by idx_blkr_property_last_end
+    @Query("select r from BlockRule r where r.propertyId = :propertyId and r.lastEndDate >= :from")
+    List<BlockRule> findByPropertyIdEndingOnOrAfter(@Param("propertyId") String propertyId, @Param("from") LocalDate from);
+
+    @Query("select r from BlockRule r where r.lastEndDate >= :from")
+    List<BlockRule> findAllEndingOnOrAfter(@Param("from") LocalDate from);
+}
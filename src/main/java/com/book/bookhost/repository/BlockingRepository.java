@@ -1,12 +1,62 @@
 package com.book.bookhost.repository;
 
+import com.book.bookhost.config.HibernateCacheConfig;
 import com.book.bookhost.model.Block;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BlockingRepository extends JpaRepository<Block, Long> {
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = HibernateCacheConfig.BLOCKS_BY_PROPERTY_REGION)
+    })
     List<Block> findByPropertyId(String propertyId);
-}
\ No newline at end of file
+
+    // range probes, served by idx_blk_property_dates
+    @Query("select b from Block b where b.propertyId = :propertyId and b.endDate >= :from")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = HibernateCacheConfig.BLOCKS_BY_PROPERTY_REGION)
+    })
+    List<Block> findByPropertyIdEndingOnOrAfter(@Param("propertyId") String propertyId, @Param("from") LocalDate from);
+
+    @Query("select b from Block b where b.endDate >= :from")
+    List<Block> findAllEndingOnOrAfter(@Param("from") LocalDate from);
+
+    @Query("select distinct b.propertyId from Block b")
+    List<String> findDistinctPropertyIds();
+
+    boolean existsByPropertyIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(String propertyId, LocalDate end, LocalDate start);
+
+    default boolean existsOverlapping(String propertyId, LocalDate start, LocalDate end) {
+        return existsByPropertyIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(propertyId, end, start);
+    }
+
+    // archival: rows are locked until commit, so no update can land between their copy and their delete
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Block b where b.endDate < :cutoff order by b.id")
+    List<Block> findEndingBeforeForUpdate(@Param("cutoff") LocalDate cutoff, Limit limit);
+
+    // export: a forward-only cursor read in fetch-size batches; rows bypass the second-level cache
+    @Query("select b from Block b where (:propertyId is null or b.propertyId = :propertyId)"
+            + " and (:from is null or b.endDate >= :from) and (:to is null or b.startDate <= :to) order by b.id")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    Stream<Block> streamForExport(@Param("propertyId") String propertyId, @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+}
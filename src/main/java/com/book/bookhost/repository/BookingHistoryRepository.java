@@ -0,0 +1,87 @@
+package com.book.bookhost.repository;
+
+import com.book.bookhost.dto.BookingSummary;
+import com.book.bookhost.model.BookingHistory;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.util.NameUtils;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface BookingHistoryRepository extends JpaRepository<BookingHistory, Long> {
+
+    // guest lookups, served by idx_bknh_guest_name_norm
+    List<BookingHistory> findByGuestNameNormalizedAndStatusNot(String guestNameNormalized, BookingStatus excluded);
+
+    @Query("select new com.book.bookhost.dto.BookingSummary(h.id, h.guestName, h.guestEmail, h.propertyId,"
+            + " h.startDate, h.endDate, h.status) from BookingHistory h"
+            + " where h.guestNameNormalized = :name and h.status <> :excluded and h.id > :afterId order by h.id")
+    List<BookingSummary> findSummariesByGuestNameAfter(@Param("name") String guestNameNormalized,
+                                                       @Param("excluded") BookingStatus excluded,
+                                                       @Param("afterId") Long afterId,
+                                                       Limit limit);
+
+    default List<BookingHistory> getActiveBookingByGuestName(String guestName) {
+        return findByGuestNameNormalizedAndStatusNot(NameUtils.normalize(guestName), BookingStatus.CANCELED);
+    }
+
+    default List<BookingSummary> getActiveBookingSummariesByGuestName(String guestName, Long afterId, int size) {
+        return findSummariesByGuestNameAfter(NameUtils.normalize(guestName), BookingStatus.CANCELED,
+                afterId == null ? 0L : afterId, Limit.of(size));
+    }
+
+    // moves between the live and history tables, one statement each way
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "bkn_bookings_history"))
+    @Query(value = "insert into bkn_bookings_history"
+            + " (id, guest_name, guest_name_normalized, guest_email, property_id, start_date, end_date, status, version, archived_at)"
+            + " select id, guest_name, guest_name_normalized, guest_email, property_id, start_date, end_date, status, version, :archivedAt"
+            + " from bkn_bookings where id in (:ids)", nativeQuery = true)
+    int copyFromBookings(@Param("ids") List<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "bkn_bookings"))
+    @Query(value = "insert into bkn_bookings"
+            + " (id, guest_name, guest_name_normalized, guest_email, property_id, start_date, end_date, status, version)"
+            + " select id, guest_name, guest_name_normalized, guest_email, property_id, start_date, end_date, status, version"
+            + " from bkn_bookings_history where id = :id", nativeQuery = true)
+    int copyToBookings(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from BookingHistory h where h.id = :id")
+    int deleteArchived(@Param("id") Long id);
+
+    /**
+     * Moves an archived booking back into bkn_bookings, keeping its id. Returns 0 if {@code id} is not archived.
+     */
+    default int restore(Long id) {
+        int restored = copyToBookings(id);
+        if (restored > 0) {
+            deleteArchived(id);
+        }
+        return restored;
+    }
+
+    // export, read like BookingRepository.streamForExport
+    @Query("select h from BookingHistory h"
+            + " where (:propertyId is null or h.propertyId = :propertyId) and (:status is null or h.status = :status)"
+            + " and (:from is null or h.endDate >= :from) and (:to is null or h.startDate <= :to) order by h.id")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    Stream<BookingHistory> streamForExport(@Param("propertyId") String propertyId, @Param("status") BookingStatus status,
+                                           @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,25 +1,89 @@
 package com.book.bookhost.repository;
 
+import com.book.bookhost.dto.BookingSummary;
 import com.book.bookhost.model.Booking;
 import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.util.NameUtils;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByPropertyId(String propertyId);
 
-    List<Booking> findByGuestName(String guestName);
+    // guest lookups, served by idx_bkn_guest_name_norm
+    List<Booking> findByGuestNameNormalizedAndStatusNot(String guestNameNormalized, BookingStatus excluded);
+
+    @Query("select new com.book.bookhost.dto.BookingSummary(b.id, b.guestName, b.guestEmail, b.propertyId,"
+            + " b.startDate, b.endDate, b.status) from Booking b"
+            + " where b.guestNameNormalized = :name and b.status <> :excluded and b.id > :afterId order by b.id")
+    List<BookingSummary> findSummariesByGuestNameAfter(@Param("name") String guestNameNormalized,
+                                                       @Param("excluded") BookingStatus excluded,
+                                                       @Param("afterId") Long afterId,
+                                                       Limit limit);
 
     default List<Booking> getActiveBookingByGuestName(String guestName) {
-        return findByGuestName(guestName).stream()
-                .filter(bok -> bok.getGuestName().equalsIgnoreCase(guestName))
-                .filter(book -> book.getStatus() != BookingStatus.CANCELED)
-                .collect(Collectors.toList());
+        return findByGuestNameNormalizedAndStatusNot(NameUtils.normalize(guestName), BookingStatus.CANCELED);
+    }
+
+    default List<BookingSummary> getActiveBookingSummariesByGuestName(String guestName, Long afterId, int size) {
+        return findSummariesByGuestNameAfter(NameUtils.normalize(guestName), BookingStatus.CANCELED,
+                afterId == null ? 0L : afterId, Limit.of(size));
+    }
+
+    // range probes, served by idx_bkn_property_dates
+    @Query("select b from Booking b where b.propertyId = :propertyId and b.status <> :excluded and b.endDate >= :from")
+    List<Booking> findByPropertyIdAndStatusNotEndingOnOrAfter(@Param("propertyId") String propertyId,
+                                                              @Param("excluded") BookingStatus excluded,
+                                                              @Param("from") LocalDate from);
+
+    @Query("select b from Booking b where b.status <> :excluded and b.endDate >= :from")
+    List<Booking> findAllByStatusNotEndingOnOrAfter(@Param("excluded") BookingStatus excluded, @Param("from") LocalDate from);
+
+    @Query("select distinct b.propertyId from Booking b")
+    List<String> findDistinctPropertyIds();
+
+    @Query("select b.id from Booking b where b.propertyId = :propertyId and b.status <> :excluded"
+            + " and b.startDate <= :end and b.endDate >= :start"
+            + " and (:ignoreId is null or b.id <> :ignoreId) order by b.startDate")
+    List<Long> findOverlappingIds(@Param("propertyId") String propertyId,
+                                  @Param("excluded") BookingStatus excluded,
+                                  @Param("start") LocalDate start,
+                                  @Param("end") LocalDate end,
+                                  @Param("ignoreId") Long ignoreId,
+                                  Limit limit);
+
+    default Optional<Long> findFirstOverlappingBookingId(String propertyId, LocalDate start, LocalDate end, Long ignoreBookingId) {
+        return findOverlappingIds(propertyId, BookingStatus.CANCELED, start, end, ignoreBookingId, Limit.of(1))
+                .stream().findFirst();
     }
 
-}
\ No newline at end of file
+    // archival: rows are locked until commit, so no update can land between their copy and their delete
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.endDate < :cutoff order by b.id")
+    List<Booking> findEndingBeforeForUpdate(@Param("cutoff") LocalDate cutoff, Limit limit);
+
+    // export: a forward-only cursor read in fetch-size batches; rows are neither snapshotted nor cached
+    @Query("select b from Booking b"
+            + " where (:propertyId is null or b.propertyId = :propertyId) and (:status is null or b.status = :status)"
+            + " and (:from is null or b.endDate >= :from) and (:to is null or b.startDate <= :to) order by b.id")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    Stream<Booking> streamForExport(@Param("propertyId") String propertyId, @Param("status") BookingStatus status,
+                                    @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,81 @@
+package com.book.bookhost.routing;
+
+import com.book.bookhost.util.ClientIds;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Pins every request of a client that has written within the last {@code bookhost.replica.stickiness} to
+ * the primary, so it reads its own writes however far the replica lags behind. The window restarts when
+ * the write completes, which is after its transaction has committed. Clients are named as for admission
+ * control. Without {@code bookhost.replica.enabled} this does nothing.
+ */
+@Component
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final boolean enabled;
+    private final String clientHeader;
+    private final Cache<String, Boolean> recentWriters;
+    private final Counter pinnedReads;
+
+    public ReadYourWritesInterceptor(@Value("${bookhost.replica.enabled:false}") boolean enabled,
+                                     @Value("${bookhost.admission.client-header:X-Client-Id}") String clientHeader,
+                                     @Value("${bookhost.replica.stickiness:5s}") Duration stickiness,
+                                     @Value("${bookhost.replica.max-sticky-clients:100000}") long maxStickyClients,
+                                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.clientHeader = clientHeader;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxStickyClients)
+                .expireAfterWrite(stickiness)
+                .build();
+        this.pinnedReads = Counter.builder("bookhost.replica.pinned.reads")
+                .description("Read requests sent to the primary because their client wrote recently")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled) {
+            return true;
+        }
+        String client = ClientIds.of(request, clientHeader);
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            recentWriters.put(client, Boolean.TRUE);
+            ReplicaRouting.pinToPrimary();
+        } else if (recentWriters.getIfPresent(client) != null) {
+            pinnedReads.increment();
+            ReplicaRouting.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!enabled) {
+            return;
+        }
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            recentWriters.put(ClientIds.of(request, clientHeader), Boolean.TRUE);
+        }
+        ReplicaRouting.unpin();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the request thread goes back to the pool; the async part reads without a pin
+        ReplicaRouting.unpin();
+    }
+}
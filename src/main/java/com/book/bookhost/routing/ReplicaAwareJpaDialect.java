@@ -0,0 +1,27 @@
+package com.book.bookhost.routing;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps transactions that will read from the replica from filling the second-level and query caches. A
+ * replica lagging behind a commit would otherwise cache rows the primary has already replaced, and they
+ * would outlive the invalidation that commit caused.
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        boolean replica = definition.isReadOnly() && !ReplicaRouting.isPinnedToPrimary();
+        // the session may outlive this transaction under open-in-view, so the mode is set either way
+        entityManager.unwrap(Session.class).setCacheMode(replica ? CacheMode.GET : CacheMode.NORMAL);
+        return transactionData;
+    }
+}
@@ -0,0 +1,76 @@
+package com.book.bookhost.routing;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Decides, per thread, whether a connection comes from the read replica or the primary.
+ * <p>
+ * Read-only transactions read from the replica unless the thread is pinned to the primary, either for the
+ * current request of a client that has just written ({@link ReadYourWritesInterceptor}) or around a block of
+ * code that needs the primary's current state ({@link #onPrimary}).
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+    private static final Object REPLICA_TRANSACTION = new Object();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Runs {@code action} with every transaction it starts reading from the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PINNED_TO_PRIMARY.remove();
+            } else {
+                PINNED_TO_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Whether the current transaction has taken its connection from the replica.
+     */
+    public static boolean isReplicaTransaction() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_TRANSACTION);
+    }
+
+    static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    static boolean routesToReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPinnedToPrimary();
+    }
+
+    static void markReplicaTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_TRANSACTION)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_TRANSACTION, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_TRANSACTION);
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.book.bookhost.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary connections otherwise.
+ * <p>
+ * It must sit behind a {@code LazyConnectionDataSourceProxy}: the transaction manager asks for a connection
+ * before the transaction is marked read-only, and only the lazy proxy defers the lookup to the first
+ * statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReplicaRouting.routesToReplica()) {
+            return Target.PRIMARY;
+        }
+        ReplicaRouting.markReplicaTransaction();
+        return Target.REPLICA;
+    }
+}
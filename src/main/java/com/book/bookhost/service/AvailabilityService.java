@@ -0,0 +1,72 @@
+package com.book.bookhost.service;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.dto.AvailabilityResponse;
+import com.book.bookhost.dto.AvailablePropertiesResponse;
+import com.book.bookhost.dto.AvailabilitySpan;
+import com.book.bookhost.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static com.book.bookhost.util.DateUtils.validateDates;
+
+@Service
+public class AvailabilityService {
+
+    private final AvailabilityIndex availabilityIndex;
+    private final OccupancyBitmapIndex occupancyIndex;
+    private final int maxCalendarDays;
+
+    public AvailabilityService(AvailabilityIndex availabilityIndex, OccupancyBitmapIndex occupancyIndex,
+                               @Value("${bookhost.availability.max-calendar-days:731}") int maxCalendarDays) {
+        this.availabilityIndex = availabilityIndex;
+        this.occupancyIndex = occupancyIndex;
+        this.maxCalendarDays = maxCalendarDays;
+    }
+
+    public AvailabilityResponse getAvailability(String propertyId, LocalDate from, LocalDate to) {
+        int length = validateRange(from, to);
+        BitSet busy = availabilityIndex.occupiedDays(propertyId, from, to);
+        return new AvailabilityResponse(propertyId, from, to, encode(busy, from, length));
+    }
+
+    public AvailablePropertiesResponse findAvailableProperties(LocalDate from, LocalDate to, int limit) {
+        validateRange(from, to);
+        if (limit < 1) {
+            throw new ValidationException("Limit must be at least 1");
+        }
+        OccupancyBitmapIndex.FreeProperties free = occupancyIndex.findFreeProperties(from, to, limit);
+        return new AvailablePropertiesResponse(from, to, free.total(), free.propertyIds());
+    }
+
+    private int validateRange(LocalDate from, LocalDate to) {
+        validateDates(from, to);
+        int length = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (length > maxCalendarDays) {
+            throw new ValidationException("Calendar range cannot exceed " + maxCalendarDays + " days");
+        }
+        return length;
+    }
+
+    // run-length encodes the day bitmap into alternating FREE/BUSY spans
+    static List<AvailabilitySpan> encode(BitSet busy, LocalDate from, int length) {
+        List<AvailabilitySpan> spans = new ArrayList<>();
+        int pos = 0;
+        while (pos < length) {
+            boolean isBusy = busy.get(pos);
+            int next = isBusy ? busy.nextClearBit(pos) : busy.nextSetBit(pos);
+            int runEnd = next < 0 || next > length ? length : next;
+            spans.add(new AvailabilitySpan(from.plusDays(pos), runEnd - pos,
+                    isBusy ? AvailabilitySpan.State.BUSY : AvailabilitySpan.State.FREE));
+            pos = runEnd;
+        }
+        return spans;
+    }
+}
@@ -0,0 +1,231 @@
+package com.book.bookhost.service;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.concurrency.PropertyLockManager;
+import com.book.bookhost.dto.BlockImportError;
+import com.book.bookhost.dto.BlockImportResponse;
+import com.book.bookhost.dto.BlockRequest;
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.exception.ValidationException;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.util.CsvUtils;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.book.bookhost.util.DateUtils.validateDates;
+
+/**
+ * Imports blocks from a CSV stream with a {@code propertyId,startDate,endDate,reason} header (any column
+ * order, {@code reason} optional).
+ * <p>
+ * The stream is read line by line and handed over in chunks of {@code bookhost.import.chunk-size} rows, so
+ * memory does not grow with the file. Each chunk runs in its own transaction: its rows are sorted by
+ * property, all of their properties are locked in one ordered acquisition, every row is checked against the
+ * property's bookings through the {@link AvailabilityIndex}, which loads a property once and answers the
+ * following rows from memory, and the accepted blocks are inserted with one {@code saveAll}. A rejected row
+ * never stops the import; it is reported with its line number.
+ */
+@Service
+public class BlockImportService {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("propertyid", "startdate", "enddate");
+
+    private final BlockingRepository blockRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final PropertyLockManager propertyLocks;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactions;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public BlockImportService(BlockingRepository blockRepository, AvailabilityIndex availabilityIndex,
+                              PropertyLockManager propertyLocks, ApplicationEventPublisher eventPublisher,
+                              Validator validator, PlatformTransactionManager transactionManager,
+                              @Value("${bookhost.import.chunk-size:500}") int chunkSize,
+                              @Value("${bookhost.import.max-errors:1000}") int maxErrors) {
+        this.blockRepository = blockRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.propertyLocks = propertyLocks;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block", "operation", "import"}, histogram = true)
+    public BlockImportResponse importCsv(InputStream csv) throws IOException {
+        Report report = new Report(maxErrors);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = null;
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (columns == null) {
+                columns = header(lineNumber == 1 ? stripByteOrderMark(line) : line);
+                continue;
+            }
+            report.rows++;
+            Row row = parse(lineNumber, line, columns, report);
+            if (row != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (columns == null) {
+            throw new ValidationException("CSV file is empty");
+        }
+        importChunk(chunk, report);
+        return report.toResponse();
+    }
+
+    private void importChunk(List<Row> rows, Report report) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        // grouping by property keeps each property's index lookups together
+        List<Row> sorted = rows.stream()
+                .sorted(Comparator.comparing((Row row) -> row.request().propertyId()).thenComparingLong(Row::line))
+                .toList();
+        List<BlockImportError> rejected = new ArrayList<>();
+        try {
+            List<Block> saved = transactions.execute(status -> {
+                propertyLocks.lockForTransaction(sorted.stream().map(row -> row.request().propertyId()).distinct().toArray(String[]::new));
+                List<Block> accepted = new ArrayList<>(sorted.size());
+                for (Row row : sorted) {
+                    BlockRequest request = row.request();
+                    availabilityIndex.findBookingConflict(request.propertyId(), request.startDate(), request.endDate(), null)
+                            .ifPresentOrElse(
+                                    conflict -> rejected.add(new BlockImportError(row.line(), request.propertyId(),
+                                            "Block dates overlap existing booking id = " + conflict.bookingId())),
+                                    () -> accepted.add(new Block(request.propertyId(), request.startDate(),
+                                            request.endDate(), request.reason())));
+                }
+                List<Block> blocks = blockRepository.saveAll(accepted);
+                blocks.forEach(block -> eventPublisher.publishEvent(BlockChangedEvent.of(ChangeType.CREATED, null, block)));
+                return blocks;
+            });
+            report.created += saved == null ? 0 : saved.size();
+            rejected.sort(Comparator.comparingLong(BlockImportError::line));
+            rejected.forEach(report::reject);
+        } catch (RuntimeException ex) {
+            // the whole chunk rolled back, e.g. on a lock timeout
+            rows.forEach(row -> report.reject(new BlockImportError(row.line(), row.request().propertyId(), ex.getMessage())));
+        }
+    }
+
+    private Row parse(long line, String text, Map<String, Integer> columns, Report report) {
+        String propertyId = null;
+        try {
+            List<String> fields = CsvUtils.parseLine(text);
+            propertyId = field(fields, columns, "propertyid");
+            String reason = field(fields, columns, "reason");
+            BlockRequest request = new BlockRequest(propertyId,
+                    date(field(fields, columns, "startdate"), "startDate"),
+                    date(field(fields, columns, "enddate"), "endDate"),
+                    reason == null || reason.isEmpty() ? null : reason);
+            Set<ConstraintViolation<BlockRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                throw new ValidationException(violations.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+            validateDates(request.startDate(), request.endDate());
+            return new Row(line, request);
+        } catch (ValidationException ex) {
+            report.reject(new BlockImportError(line, propertyId, ex.getMessage()));
+            return null;
+        }
+    }
+
+    private static Map<String, Integer> header(String line) {
+        List<String> names = CsvUtils.parseLine(line);
+        Map<String, Integer> columns = names.stream()
+                .collect(Collectors.toMap(name -> name.toLowerCase(Locale.ROOT), names::indexOf, (a, b) -> a));
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new ValidationException("CSV header must contain propertyId, startDate and endDate columns");
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    private static LocalDate date(String value, String column) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new ValidationException(column + " must be an ISO date (yyyy-MM-dd), got '" + value + "'");
+        }
+    }
+
+    private static String stripByteOrderMark(String line) {
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    private record Row(long line, BlockRequest request) {
+    }
+
+    private static final class Report {
+        private final int maxErrors;
+        private final List<BlockImportError> errors = new ArrayList<>();
+        private long rows;
+        private long created;
+        private long rejected;
+
+        private Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void reject(BlockImportError error) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+
+        private BlockImportResponse toResponse() {
+            errors.sort(Comparator.comparingLong(BlockImportError::line));
+            return new BlockImportResponse(rows, created, rejected, List.copyOf(errors), rejected > errors.size());
+        }
+    }
+}
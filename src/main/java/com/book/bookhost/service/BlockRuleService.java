@@ -0,0 +1,85 @@
+package com.book.bookhost.service;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.concurrency.PropertyLockManager;
+import com.book.bookhost.dto.BlockRuleRequest;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.exception.NotFoundException;
+import com.book.bookhost.exception.ValidationException;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.repository.BlockRuleRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static com.book.bookhost.util.DateUtils.validateDates;
+
+@Service
+public class BlockRuleService {
+
+    private final BlockRuleRepository blockRuleRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final PropertyLockManager propertyLocks;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BlockRuleService(BlockRuleRepository blockRuleRepository, AvailabilityIndex availabilityIndex,
+                            PropertyLockManager propertyLocks, ApplicationEventPublisher eventPublisher) {
+        this.blockRuleRepository = blockRuleRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.propertyLocks = propertyLocks;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block_rule", "operation", "create"}, histogram = true)
+    @Transactional
+    public BlockRule createRule(BlockRuleRequest request) {
+        validateDates(request.startDate(), request.endDate());
+        if (request.until().isBefore(request.startDate())) {
+            throw new ValidationException("Until Date cannot be before Start Date");
+        }
+        int interval = request.interval() == null ? 1 : request.interval();
+        long length = ChronoUnit.DAYS.between(request.startDate(), request.endDate()) + 1;
+        // occurrences of one rule never overlap each other
+        if (length > (long) request.frequency().minimumDays() * interval) {
+            throw new ValidationException("An occurrence cannot be longer than " + request.frequency().minimumDays() * interval
+                    + " days for a " + request.frequency().name().toLowerCase() + " rule with interval " + interval);
+        }
+        BlockRule rule = new BlockRule(request.propertyId(), request.startDate(), request.endDate(), request.frequency(),
+                interval, request.until(), request.reason());
+
+        propertyLocks.lockForTransaction(request.propertyId());
+        availabilityIndex.findBookingConflict(request.propertyId(), rule.toRecurrence())
+                .ifPresent(conflict -> {
+                    throw new ValidationException("Block rule occurrences overlap existing booking id = "
+                            + conflict.bookingId());
+                });
+
+        BlockRule saved = blockRuleRepository.save(rule);
+        eventPublisher.publishEvent(BlockRuleChangedEvent.of(ChangeType.CREATED, saved));
+        return saved;
+    }
+
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block_rule", "operation", "delete"}, histogram = true)
+    @Transactional
+    public void deleteRule(Long id) {
+        BlockRule existing = blockRuleRepository.findById(id).orElseThrow(() -> new NotFoundException("Block rule not found"));
+        propertyLocks.lockForTransaction(existing.getPropertyId());
+        blockRuleRepository.delete(existing);
+        eventPublisher.publishEvent(BlockRuleChangedEvent.of(ChangeType.DELETED, existing));
+    }
+
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block_rule", "operation", "list"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<BlockRule> getRules(String propertyId) {
+        List<BlockRule> rules = blockRuleRepository.findByPropertyId(propertyId);
+        if (rules.isEmpty()) {
+            throw new NotFoundException("Block rules not found");
+        }
+        return rules;
+    }
+}
@@ -1,77 +1,103 @@
 package com.book.bookhost.service;
 
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.cache.BlockChangeCounter;
+import com.book.bookhost.concurrency.PropertyLockManager;
 import com.book.bookhost.dto.BlockRequest;
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.ChangeType;
 import com.book.bookhost.exception.NotFoundException;
+import com.book.bookhost.exception.PreconditionFailedException;
 import com.book.bookhost.exception.ValidationException;
 import com.book.bookhost.model.Block;
-import com.book.bookhost.model.Booking;
-import com.book.bookhost.model.BookingStatus;
 import com.book.bookhost.repository.BlockingRepository;
-import com.book.bookhost.repository.BookingRepository;
-import jakarta.transaction.Transactional;
+import com.book.bookhost.util.ETags;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
-import static com.book.bookhost.util.DateUtils.overlap;
 import static com.book.bookhost.util.DateUtils.validateDates;
 
 @Service
 public class BlockingService {
 
     private final BlockingRepository blockRepository;
-    private final BookingRepository bookingRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final PropertyLockManager propertyLocks;
+    private final BlockChangeCounter blockChangeCounter;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BlockingService(BlockingRepository blockRepository, BookingRepository bookingRepository) {
+    public BlockingService(BlockingRepository blockRepository, AvailabilityIndex availabilityIndex,
+                           PropertyLockManager propertyLocks, BlockChangeCounter blockChangeCounter,
+                           ApplicationEventPublisher eventPublisher) {
         this.blockRepository = blockRepository;
-        this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.propertyLocks = propertyLocks;
+        this.blockChangeCounter = blockChangeCounter;
+        this.eventPublisher = eventPublisher;
     }
 
     // Block operations
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block", "operation", "create"}, histogram = true)
     @Transactional
     public Block createBlock(BlockRequest request) {
         validateDates(request.startDate(), request.endDate());
 
         // ensure block doesn't overlap non-canceled bookings
-        List<Booking> bookings = bookingRepository.findByPropertyId(request.propertyId());
-        bookings.stream()
-                .filter(b -> b.getStatus() != BookingStatus.CANCELED)
-                .forEach(b -> {
-                    if (overlap(request.startDate(), request.endDate(), b.getStartDate(), b.getEndDate())) {
-                        throw new ValidationException("Block dates overlap existing booking id = " + b.getId());
-                    }
+        propertyLocks.lockForTransaction(request.propertyId());
+        availabilityIndex.findBookingConflict(request.propertyId(), request.startDate(), request.endDate(), null)
+                .ifPresent(conflict -> {
+                    throw new ValidationException("Block dates overlap existing booking id = " + conflict.bookingId());
                 });
 
         Block block = new Block(request.propertyId(), request.startDate(), request.endDate(), request.reason());
-        return blockRepository.save(block);
+        Block saved = blockRepository.save(block);
+        eventPublisher.publishEvent(BlockChangedEvent.of(ChangeType.CREATED, null, saved));
+        return saved;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block", "operation", "update"}, histogram = true)
     @Transactional
-    public Block updateBlock(Long id, BlockRequest request) {
+    public Block updateBlock(Long id, BlockRequest request, String ifMatch) {
         Block existing = blockRepository.findById(id).orElseThrow(() -> new NotFoundException("Block not found"));
         validateDates(request.startDate(), request.endDate());
 
+        // a move changes both block lists, so both properties are locked, in one ordered acquisition
+        propertyLocks.lockForTransaction(existing.getPropertyId(), request.propertyId());
+        // the tag is that of the property's block list; under its lock no other change to it can be in flight
+        if (!ETags.matches(ifMatch, blockChangeCounter.etag(existing.getPropertyId()))) {
+            throw new PreconditionFailedException("Blocks of property " + existing.getPropertyId() + " have been modified since they were read");
+        }
         // check bookings overlap
-        bookingRepository.findByPropertyId(request.propertyId()).stream()
-                .filter(b -> b.getStatus() != BookingStatus.CANCELED)
-                .forEach(b -> {
-                    if (overlap(request.startDate(), request.endDate(), b.getStartDate(), b.getEndDate())) {
-                        throw new ValidationException("Block dates overlap existing booking id=" + b.getId());
-                    }
+        availabilityIndex.findBookingConflict(request.propertyId(), request.startDate(), request.endDate(), null)
+                .ifPresent(conflict -> {
+                    throw new ValidationException("Block dates overlap existing booking id=" + conflict.bookingId());
                 });
 
+        String previousPropertyId = existing.getPropertyId();
         existing.setPropertyId(request.propertyId());
         existing.setStartDate(request.startDate());
         existing.setEndDate(request.endDate());
         existing.setReason(request.reason());
-        return blockRepository.save(existing);
+        Block saved = blockRepository.save(existing);
+        eventPublisher.publishEvent(BlockChangedEvent.of(ChangeType.UPDATED, previousPropertyId, saved));
+        return saved;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block", "operation", "delete"}, histogram = true)
+    @Transactional
     public void deleteBlock(Long id) {
         Block existing = blockRepository.findById(id).orElseThrow(() -> new NotFoundException("Block not found"));
+        propertyLocks.lockForTransaction(existing.getPropertyId());
         blockRepository.delete(existing);
+        eventPublisher.publishEvent(BlockChangedEvent.of(ChangeType.DELETED, existing.getPropertyId(), existing));
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "block", "operation", "list"}, histogram = true)
+    @Transactional(readOnly = true)
     public List<Block> getBlocking(String propertyId) {
         List<Block> listOfBlocks = blockRepository.findByPropertyId(propertyId);
         if(listOfBlocks.isEmpty()){
@@ -0,0 +1,143 @@
+package com.book.bookhost.service;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.BookingConflict;
+import com.book.bookhost.concurrency.PropertyLockManager;
+import com.book.bookhost.dto.BatchBookingResponse;
+import com.book.bookhost.dto.BatchItemResult;
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.exception.ValidationException;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BookingRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static com.book.bookhost.util.DateUtils.validateDates;
+
+/**
+ * Creates many bookings in one transaction. Every item is validated on its own, against existing
+ * bookings and blocks and against the items accepted before it in the same batch; accepted items are
+ * then inserted together so Hibernate can send them as JDBC batches.
+ */
+@Service
+public class BookingBatchService {
+
+    private final BookingRepository bookingRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final PropertyLockManager propertyLocks;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final int maxItems;
+
+    public BookingBatchService(BookingRepository bookingRepository, AvailabilityIndex availabilityIndex,
+                               PropertyLockManager propertyLocks, ApplicationEventPublisher eventPublisher,
+                               Validator validator, @Value("${bookhost.batch.max-items:1000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.propertyLocks = propertyLocks;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.maxItems = maxItems;
+    }
+
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "batch_create"}, histogram = true)
+    @Transactional
+    public BatchBookingResponse createBookings(List<BookingRequest> requests) {
+        if (requests.isEmpty()) {
+            throw new ValidationException("Batch must contain at least one booking");
+        }
+        if (requests.size() > maxItems) {
+            throw new ValidationException("Batch cannot contain more than " + maxItems + " bookings");
+        }
+
+        // every property of the batch is locked up front, in one ordered acquisition
+        propertyLocks.lockForTransaction(requests.stream()
+                .filter(Objects::nonNull)
+                .map(BookingRequest::propertyId)
+                .toArray(String[]::new));
+
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Booking> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        // accepted items of this batch per property, keyed by start date; they never overlap each other
+        Map<String, TreeMap<LocalDate, Integer>> batchCalendars = new HashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            Optional<String> error = validate(request, requests, batchCalendars);
+            if (error.isPresent()) {
+                results[i] = BatchItemResult.rejected(i, error.get());
+                continue;
+            }
+            batchCalendars.computeIfAbsent(request.propertyId(), id -> new TreeMap<>()).put(request.startDate(), i);
+            accepted.add(new Booking(request.guestName(), request.guestEmail(), request.propertyId(),
+                    request.startDate(), request.endDate(), BookingStatus.ACTIVE));
+            acceptedIndexes.add(i);
+        }
+
+        List<Booking> saved = bookingRepository.saveAll(accepted);
+        for (int i = 0; i < saved.size(); i++) {
+            Booking booking = saved.get(i);
+            results[acceptedIndexes.get(i)] = BatchItemResult.created(acceptedIndexes.get(i), booking);
+            eventPublisher.publishEvent(BookingChangedEvent.of(ChangeType.CREATED, null, booking));
+        }
+        return BatchBookingResponse.of(List.of(results));
+    }
+
+    private Optional<String> validate(BookingRequest request, List<BookingRequest> requests,
+                                      Map<String, TreeMap<LocalDate, Integer>> batchCalendars) {
+        if (request == null) {
+            return Optional.of("Booking must not be null");
+        }
+        Set<ConstraintViolation<BookingRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return Optional.of(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        try {
+            validateDates(request.startDate(), request.endDate());
+        } catch (ValidationException ex) {
+            return Optional.of(ex.getMessage());
+        }
+
+        Optional<BookingConflict> bookingConflict = availabilityIndex.findBookingConflict(
+                request.propertyId(), request.startDate(), request.endDate(), null);
+        if (bookingConflict.isPresent()) {
+            return Optional.of("Requested dates overlap existing Booking id: " + bookingConflict.get().bookingId());
+        }
+        if (availabilityIndex.overlapsBlock(request.propertyId(), request.startDate(), request.endDate())) {
+            return Optional.of("Requested dates overlap block propertyId = " + request.propertyId());
+        }
+
+        // accepted batch items are disjoint, so only the latest one starting on or before our end can overlap
+        TreeMap<LocalDate, Integer> batchCalendar = batchCalendars.get(request.propertyId());
+        if (batchCalendar != null) {
+            Map.Entry<LocalDate, Integer> candidate = batchCalendar.floorEntry(request.endDate());
+            if (candidate != null && !requests.get(candidate.getValue()).endDate().isBefore(request.startDate())) {
+                return Optional.of("Requested dates overlap batch item " + candidate.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -1,118 +1,223 @@
 package com.book.bookhost.service;
 
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.cache.BookingCache;
+import com.book.bookhost.concurrency.PropertyLockManager;
 import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.dto.BookingSummary;
+import com.book.bookhost.dto.GuestBookingPage;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.exception.PreconditionFailedException;
 import com.book.bookhost.exception.ValidationException;
 import com.book.bookhost.exception.NotFoundException;
 import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingHistory;
 import com.book.bookhost.model.BookingStatus;
-import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingHistoryRepository;
 import com.book.bookhost.repository.BookingRepository;
-import jakarta.transaction.Transactional;
+import com.book.bookhost.util.ETags;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
 
-import static com.book.bookhost.util.DateUtils.overlap;
 import static com.book.bookhost.util.DateUtils.validateDates;
 
 @Service
 public class BookingService {
 
-    private final BookingRepository bookingRepository;
-    private final BlockingRepository blockRepository;
+    private static final int MAX_PAGE_SIZE = 200;
 
-    public BookingService(BookingRepository bookingRepository, BlockingRepository blockRepository) {
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final PropertyLockManager propertyLocks;
+    private final BookingCache bookingCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookingService(BookingRepository bookingRepository, BookingHistoryRepository bookingHistoryRepository,
+                          AvailabilityIndex availabilityIndex, PropertyLockManager propertyLocks,
+                          BookingCache bookingCache, ApplicationEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
-        this.blockRepository = blockRepository;
+        this.bookingHistoryRepository = bookingHistoryRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.propertyLocks = propertyLocks;
+        this.bookingCache = bookingCache;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "create"}, histogram = true)
     @Transactional
     public Booking createBooking(BookingRequest request) {
         validateDates(request.startDate(), request.endDate());
         ensureNoOverlapWithBookingsOrBlocks(request.propertyId(), request.startDate(), request.endDate(), null);
         Booking b = new Booking(request.guestName(), request.guestEmail(), request.propertyId(), request.startDate(), request.endDate(),BookingStatus.ACTIVE);
-        return bookingRepository.save(b);
+        Booking saved = bookingRepository.save(b);
+        eventPublisher.publishEvent(BookingChangedEvent.of(ChangeType.CREATED, null, saved));
+        return saved;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "update"}, histogram = true)
     @Transactional
-    public Booking updateBooking(Long id, BookingRequest request) {
+    public Booking updateBooking(Long id, BookingRequest request, String ifMatch) {
         Booking existing = bookingRepository.findById(id).orElseThrow(() -> new NotFoundException("Booking not found"));
+        // a write racing past this check still fails on the version column when it flushes
+        if (!ETags.matches(ifMatch, ETags.of(existing.getVersion()))) {
+            throw new PreconditionFailedException("Booking has been modified since it was read");
+        }
+        // both properties, in one call so that the stripes are taken in order
+        propertyLocks.lockForTransaction(existing.getPropertyId(), request.propertyId());
         validateDates(request.startDate(), request.endDate());
         ensureNoOverlapWithBookingsOrBlocks(request.propertyId(), request.startDate(), request.endDate(), id);
+        String previousPropertyId = existing.getPropertyId();
         existing.setGuestName(request.guestName());
         existing.setGuestEmail(request.guestEmail());
         existing.setPropertyId(request.propertyId());
         existing.setStartDate(request.startDate());
         existing.setEndDate(request.endDate());
-        return bookingRepository.save(existing);
+        Booking saved = saveFlushed(existing);
+        eventPublisher.publishEvent(BookingChangedEvent.of(ChangeType.UPDATED, previousPropertyId, saved));
+        return saved;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "cancel"}, histogram = true)
     @Transactional
     public void cancelBooking(Long id) {
         Booking existing = bookingRepository.findById(id).orElseThrow(() -> new NotFoundException("Booking not found"));
         if (existing.getStatus() == BookingStatus.CANCELED) return;
+        propertyLocks.lockForTransaction(existing.getPropertyId());
         existing.setStatus(BookingStatus.CANCELED);
-        bookingRepository.save(existing);
+        saveFlushed(existing);
+        eventPublisher.publishEvent(BookingChangedEvent.of(ChangeType.CANCELED, existing.getPropertyId(), existing));
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "rebook"}, histogram = true)
     @Transactional
     public Booking rebook(Long id, BookingRequest request) {
-        Booking existing = bookingRepository.findById(id).orElseThrow(() -> new NotFoundException("Booking not found"));
+        // a canceled stay may already be archived; it is moved back and the move rolls back with any failure below
+        Booking existing = bookingRepository.findById(id)
+                .or(() -> restoreArchived(id))
+                .orElseThrow(() -> new NotFoundException("Booking not found"));
         if (existing.getStatus() != BookingStatus.CANCELED) {
             throw new ValidationException("Only canceled bookings can be rebooked");
         }
+        propertyLocks.lockForTransaction(existing.getPropertyId(), request.propertyId());
         // reuse existing id but validate overlap
         validateDates(request.startDate(), request.endDate());
         ensureNoOverlapWithBookingsOrBlocks(request.propertyId(), request.startDate(), request.endDate(), id);
+        String previousPropertyId = existing.getPropertyId();
         existing.setGuestName(request.guestName());
         existing.setGuestEmail(request.guestEmail());
         existing.setPropertyId(request.propertyId());
         existing.setStartDate(request.startDate());
         existing.setEndDate(request.endDate());
         existing.setStatus(BookingStatus.ACTIVE);
-        return bookingRepository.save(existing);
+        Booking saved = saveFlushed(existing);
+        eventPublisher.publishEvent(BookingChangedEvent.of(ChangeType.REBOOKED, previousPropertyId, saved));
+        return saved;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "get"}, histogram = true)
+    @Transactional(readOnly = true)
     public Booking getBooking(Long id) {
-        return bookingRepository.findById(id).orElseThrow(() -> new NotFoundException("Booking not found"));
+        return bookingCache.get(id, key -> bookingRepository.findById(key)
+                .or(() -> bookingHistoryRepository.findById(key).map(BookingHistory::toBooking))
+                .orElseThrow(() -> new NotFoundException("Booking not found")));
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "guest_lookup"}, histogram = true)
+    @Transactional(readOnly = true)
     public List<Booking> getActiveBookingByGuestName(String guestName) {
-        List<Booking> bookingByGuestNameList = bookingRepository.getActiveBookingByGuestName(guestName);
+        List<Booking> bookingByGuestNameList = new ArrayList<>(bookingRepository.getActiveBookingByGuestName(guestName));
+        bookingHistoryRepository.getActiveBookingByGuestName(guestName).stream()
+                .map(BookingHistory::toBooking)
+                .forEach(bookingByGuestNameList::add);
         if(bookingByGuestNameList.isEmpty()){
             throw new NotFoundException("Booking not found");
         }
         return bookingByGuestNameList;
     }
 
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "guest_page"}, histogram = true)
+    @Transactional(readOnly = true)
+    public GuestBookingPage getActiveBookingPageByGuestName(String guestName, Long after, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // one extra row tells us whether another page exists without a count query
+        List<BookingSummary> rows = mergeById(
+                bookingRepository.getActiveBookingSummariesByGuestName(guestName, after, size + 1),
+                bookingHistoryRepository.getActiveBookingSummariesByGuestName(guestName, after, size + 1),
+                size + 1);
+        if (rows.size() <= size) {
+            return new GuestBookingPage(rows, null);
+        }
+        List<BookingSummary> items = rows.subList(0, size);
+        return new GuestBookingPage(List.copyOf(items), items.get(size - 1).id());
+    }
+
+    @Timed(value = "bookhost.operations", extraTags = {"entity", "booking", "operation", "delete"}, histogram = true)
     @Transactional
     public void deleteBooking(Long id) {
         Booking existing = bookingRepository.findById(id).orElseThrow(() -> new NotFoundException("Booking not found"));
+        propertyLocks.lockForTransaction(existing.getPropertyId());
         existing.setStatus(BookingStatus.DELETED);
-        bookingRepository.save(existing);
+        saveFlushed(existing);
+        eventPublisher.publishEvent(BookingChangedEvent.of(ChangeType.DELETED, existing.getPropertyId(), existing));
+    }
+
+    // the version is only incremented by the flush, and the change event has to carry the new one
+    private Booking saveFlushed(Booking booking) {
+        Booking saved = bookingRepository.save(booking);
+        bookingRepository.flush();
+        return saved;
+    }
+
+    private Optional<Booking> restoreArchived(Long id) {
+        if (bookingHistoryRepository.restore(id) == 0) {
+            return Optional.empty();
+        }
+        return bookingRepository.findById(id);
+    }
+
+    // both inputs are ordered by id and an id lives in only one of the tables
+    private static List<BookingSummary> mergeById(List<BookingSummary> live, List<BookingSummary> archived, int limit) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<BookingSummary> merged = new ArrayList<>(Math.min(limit, live.size() + archived.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < live.size() || j < archived.size())) {
+            if (j == archived.size() || (i < live.size() && live.get(i).id() < archived.get(j).id())) {
+                merged.add(live.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
     }
 
     private void ensureNoOverlapWithBookingsOrBlocks(String propertyId, LocalDate start, LocalDate end, Long ignoreBookingId) {
+        // held until commit, so no other write to this property can slip in between check and insert
+        propertyLocks.lockForTransaction(propertyId);
+
         // check bookings (only non-canceled)
-        List<Booking> bookings = bookingRepository.findByPropertyId(propertyId);
-        bookings.stream().filter(book -> book.getStatus() != BookingStatus.CANCELED)
-                .filter(book -> !Objects.equals(book.getId(),ignoreBookingId))
-                .forEach(book -> {
-                    if(overlap(start,end,book.getStartDate(),book.getEndDate())){
-                        throw new ValidationException("Requested dates overlap existing Booking id: " + book.getId());
-                    }
+        availabilityIndex.findBookingConflict(propertyId, start, end, ignoreBookingId)
+                .ifPresent(conflict -> {
+                    throw new ValidationException("Requested dates overlap existing Booking id: " + conflict.bookingId());
                 });
 
         // check blocks
-        blockRepository.findByPropertyId(propertyId).stream()
-                .forEach(block -> {
-                    if (overlap(start, end, block.getStartDate(), block.getEndDate())) {
-                        throw new ValidationException("Requested dates overlap block propertyId = " + block.getPropertyId());
-                    }
-                });
+        if (availabilityIndex.overlapsBlock(propertyId, start, end)) {
+            throw new ValidationException("Requested dates overlap block propertyId = " + propertyId);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package com.book.bookhost.service;
+
+import com.book.bookhost.dto.ExportFilter;
+import com.book.bookhost.exception.ValidationException;
+import com.book.bookhost.model.BlockHistory;
+import com.book.bookhost.model.BookingHistory;
+import com.book.bookhost.repository.BlockHistoryRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingHistoryRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes every booking or block matching an {@link ExportFilter} to a stream, live rows first and then,
+ * if asked for, archived ones, each group ordered by id.
+ * <p>
+ * Rows come from forward-only cursors that fetch {@code 500} rows at a time inside one read-only
+ * transaction. Every entity is detached as soon as it has been written, so the persistence context, like
+ * the output buffer, which is flushed every {@value #FLUSH_EVERY} rows, stays the same size however many
+ * rows are exported.
+ */
+@Service
+public class ExportService {
+
+    static final int FLUSH_EVERY = 500;
+
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final BlockingRepository blockRepository;
+    private final BlockHistoryRepository blockHistoryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransactions;
+    private final Counter exportedBookings;
+    private final Counter exportedBlocks;
+
+    public ExportService(BookingRepository bookingRepository, BookingHistoryRepository bookingHistoryRepository,
+                         BlockingRepository blockRepository, BlockHistoryRepository blockHistoryRepository,
+                         EntityManager entityManager, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.bookingHistoryRepository = bookingHistoryRepository;
+        this.blockRepository = blockRepository;
+        this.blockHistoryRepository = blockHistoryRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransactions = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactions.setReadOnly(true);
+        this.exportedBookings = exportedCounter(meterRegistry, "booking");
+        this.exportedBlocks = exportedCounter(meterRegistry, "block");
+    }
+
+    public void validate(ExportFilter filter) {
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new ValidationException("from must not be after to");
+        }
+    }
+
+    /**
+     * @return the number of bookings written
+     */
+    public long exportBookings(ExportFilter filter, ObjectWriter writer, OutputStream out) throws IOException {
+        return export(writer, out, exportedBookings, sequence -> {
+            long rows;
+            try (Stream<?> live = bookingRepository.streamForExport(filter.propertyId(), filter.status(), filter.from(), filter.to())) {
+                rows = copy(live, Function.identity(), sequence);
+            }
+            if (filter.includeArchived()) {
+                try (Stream<BookingHistory> archived = bookingHistoryRepository.streamForExport(
+                        filter.propertyId(), filter.status(), filter.from(), filter.to())) {
+                    rows += copy(archived, BookingHistory::toBooking, sequence);
+                }
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * @return the number of blocks written
+     */
+    public long exportBlocks(ExportFilter filter, ObjectWriter writer, OutputStream out) throws IOException {
+        return export(writer, out, exportedBlocks, sequence -> {
+            long rows;
+            try (Stream<?> live = blockRepository.streamForExport(filter.propertyId(), filter.from(), filter.to())) {
+                rows = copy(live, Function.identity(), sequence);
+            }
+            if (filter.includeArchived()) {
+                try (Stream<BlockHistory> archived = blockHistoryRepository.streamForExport(
+                        filter.propertyId(), filter.from(), filter.to())) {
+                    rows += copy(archived, BlockHistory::toBlock, sequence);
+                }
+            }
+            return rows;
+        });
+    }
+
+    private long export(ObjectWriter writer, OutputStream out, Counter exported, Export export) throws IOException {
+        ObjectWriter sequenceWriter = writer
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (SequenceWriter sequence = sequenceWriter.writeValues(out)) {
+            Long rows = readOnlyTransactions.execute(status -> export.writeTo(sequence));
+            exported.increment(rows == null ? 0 : rows);
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private <T> long copy(Stream<T> rows, Function<T, ?> view, SequenceWriter sequence) {
+        long written = 0;
+        Iterator<T> iterator = rows.iterator();
+        try {
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                sequence.write(view.apply(row));
+                entityManager.detach(row);
+                if (++written % FLUSH_EVERY == 0) {
+                    sequence.flush();
+                }
+            }
+        } catch (IOException ex) {
+            // the client went away; the cursor is closed by the caller
+            throw new UncheckedIOException(ex);
+        }
+        return written;
+    }
+
+    private static Counter exportedCounter(MeterRegistry registry, String entity) {
+        return Counter.builder("bookhost.exported")
+                .description("Rows written by the export endpoints")
+                .tag("entity", entity)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long writeTo(SequenceWriter sequence);
+    }
+}
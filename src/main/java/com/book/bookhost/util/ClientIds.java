@@ -0,0 +1,22 @@
+package com.book.bookhost.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+public final class ClientIds {
+
+    private ClientIds() {
+    }
+
+    /**
+     * The API client named by the {@code clientHeader} header, or the remote address when it is absent or no
+     * header is configured. Any caller can put anything in the header, so it only names a client reliably when
+     * a trusted proxy in front of the application sets or overwrites it.
+     */
+    public static String of(HttpServletRequest request, String clientHeader) {
+        if (clientHeader == null || clientHeader.isBlank()) {
+            return request.getRemoteAddr();
+        }
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+}
@@ -20,6 +20,13 @@ public class DateUtils {
         return !(aEnd.isBefore(bStart) || aStart.isAfter(bEnd) );
     }
 
+    /**
+     * Same check over epoch days ({@link LocalDate#toEpochDay()}), without branching on the first comparison.
+     */
+    public static boolean overlap(int aStart, int aEnd, int bStart, int bEnd) {
+        return aStart <= bEnd & bStart <= aEnd;
+    }
+
     public static LocalDate today() {
         return LocalDate.now();
     }
@@ -0,0 +1,30 @@
+package com.book.bookhost.util;
+
+/**
+ * Strong entity tags for the versioned resources of the API.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * Evaluates an {@code If-Match} header against the current tag of a resource, using strong comparison.
+     * A missing header always matches.
+     */
+    public static boolean matches(String ifMatch, String etag) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            if (candidate.trim().equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
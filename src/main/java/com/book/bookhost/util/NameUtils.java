@@ -0,0 +1,17 @@
+package com.book.bookhost.util;
+
+import java.util.Locale;
+
+public class NameUtils {
+
+    public NameUtils() {
+    }
+
+    // case- and whitespace-insensitive form used for guest lookups
+    public static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,66 @@
+-- Schema of the durable profile. Keep in sync with the entities in com.book.bookhost.model;
+-- sequence increments must match their allocationSize.
+
+create sequence if not exists bkn_bookings_seq start with 1 increment by 50;
+create sequence if not exists blk_blocks_seq start with 1 increment by 50;
+create sequence if not exists blk_block_rules_seq start with 1 increment by 50;
+
+create table if not exists bkn_bookings (
+    id bigint not null primary key,
+    guest_name varchar(255),
+    guest_name_normalized varchar(255),
+    guest_email varchar(255),
+    property_id varchar(255),
+    start_date date,
+    end_date date,
+    status varchar(16),
+    version bigint
+);
+create index if not exists idx_bkn_property_dates on bkn_bookings (property_id, start_date, end_date);
+create index if not exists idx_bkn_guest_name_norm on bkn_bookings (guest_name_normalized, id);
+
+create table if not exists blk_blocks (
+    id bigint not null primary key,
+    property_id varchar(255),
+    start_date date,
+    end_date date,
+    reason varchar(255)
+);
+create index if not exists idx_blk_property_dates on blk_blocks (property_id, start_date, end_date);
+
+create table if not exists blk_block_rules (
+    id bigint not null primary key,
+    property_id varchar(255),
+    start_date date,
+    end_date date,
+    frequency varchar(16),
+    repeat_interval integer not null,
+    until_date date,
+    last_end_date date,
+    reason varchar(255)
+);
+create index if not exists idx_blkr_property_last_end on blk_block_rules (property_id, last_end_date);
+
+create table if not exists bkn_bookings_history (
+    id bigint not null primary key,
+    guest_name varchar(255),
+    guest_name_normalized varchar(255),
+    guest_email varchar(255),
+    property_id varchar(255),
+    start_date date,
+    end_date date,
+    status varchar(16),
+    version bigint,
+    archived_at timestamp(6) with time zone
+);
+create index if not exists idx_bknh_guest_name_norm on bkn_bookings_history (guest_name_normalized, id);
+
+create table if not exists blk_blocks_history (
+    id bigint not null primary key,
+    property_id varchar(255),
+    start_date date,
+    end_date date,
+    reason varchar(255),
+    archived_at timestamp(6) with time zone
+);
+create index if not exists idx_blkh_property_dates on blk_blocks_history (property_id, start_date, end_date);
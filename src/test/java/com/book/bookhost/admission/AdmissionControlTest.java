@@ -0,0 +1,92 @@
+package com.book.bookhost.admission;
+
+import com.book.bookhost.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        admissionControl = new AdmissionControl(true,
+                new AdmissionControl.Limits(10, 5, 100),
+                new AdmissionControl.Limits(1, 2, 1),
+                Duration.ofMinutes(1), 1000, meterRegistry, now::get);
+    }
+
+    @Test
+    void rateLimitsAfterBurstAndRefills() {
+        for (int i = 0; i < 5; i++) {
+            admissionControl.admitClient("client-a").close();
+        }
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> admissionControl.admitClient("client-a"));
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        admissionControl.admitClient("client-b").close();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        admissionControl.admitClient("client-a").close();
+        assertThrows(TooManyRequestsException.class, () -> admissionControl.admitClient("client-a"));
+
+        assertEquals(2.0, meterRegistry.get("bookhost.admission.rejected").tag("scope", "client").tag("reason", "rate").counter().count());
+        assertEquals(7.0, meterRegistry.get("bookhost.admission.admitted").tag("scope", "client").counter().count());
+    }
+
+    @Test
+    void capsConcurrentRequestsPerProperty() {
+        AdmissionControl.Permit permit = admissionControl.admitProperty("prop1");
+        assertEquals(1.0, meterRegistry.get("bookhost.admission.in.flight").tag("scope", "property").gauge().value());
+
+        assertThrows(TooManyRequestsException.class, () -> admissionControl.forProperty("prop1", () -> "created"));
+        assertEquals("created", admissionControl.forProperty("prop2", () -> "created"));
+
+        permit.close();
+        assertEquals("created", admissionControl.forProperty("prop1", () -> "created"));
+        assertEquals(1.0, meterRegistry.get("bookhost.admission.rejected").tag("scope", "property").tag("reason", "concurrency").counter().count());
+        assertEquals(0.0, meterRegistry.get("bookhost.admission.in.flight").tag("scope", "property").gauge().value());
+    }
+
+    @Test
+    void admitsBatchOnlyWhenEveryPropertyIsAdmitted() {
+        AdmissionControl.Permit permit = admissionControl.admitProperty("prop2");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> admissionControl.forProperties(List.of("prop1", "prop2", "prop1"), () -> "created"));
+        assertEquals(1.0, meterRegistry.get("bookhost.admission.in.flight").tag("scope", "property").gauge().value());
+
+        permit.close();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals("created", admissionControl.forProperties(List.of("prop1", "prop2", "prop1"), () -> "created"));
+        assertEquals(0.0, meterRegistry.get("bookhost.admission.in.flight").tag("scope", "property").gauge().value());
+    }
+
+    @Test
+    void retryAfterCoversTimeUntilNextToken() {
+        admissionControl.admitProperty("prop1").close();
+        admissionControl.admitProperty("prop1").close();
+
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> admissionControl.admitProperty("prop1"));
+
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThrows(TooManyRequestsException.class, () -> admissionControl.admitProperty("prop1"));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        admissionControl.admitProperty("prop1").close();
+    }
+}
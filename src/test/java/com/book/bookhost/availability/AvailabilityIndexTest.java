@@ -0,0 +1,166 @@
+package com.book.bookhost.availability;
+
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockRuleRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BlockingRepository blockRepository;
+
+    @Mock
+    private BlockRuleRepository blockRuleRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AvailabilityIndex index;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new AvailabilityIndex(bookingRepository, blockRepository, blockRuleRepository, true, 100_000, meterRegistry);
+    }
+
+    @Test
+    void loadsPropertyOnceFromRangeQuery() {
+        Booking active = booking(1L, "prop1", today.plusDays(1), today.plusDays(3), BookingStatus.ACTIVE);
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter("prop1", BookingStatus.CANCELED, today))
+                .thenReturn(List.of(active));
+        when(blockRepository.findByPropertyIdEndingOnOrAfter("prop1", today)).thenReturn(Collections.emptyList());
+
+        assertEquals(Optional.of(new BookingConflict(1L)), index.findBookingConflict("prop1", today.plusDays(3), today.plusDays(4), null));
+        assertEquals(Optional.empty(), index.findBookingConflict("prop1", today.plusDays(4), today.plusDays(7), null));
+        assertEquals(Optional.empty(), index.findBookingConflict("prop1", today.plusDays(1), today.plusDays(3), 1L));
+
+        verify(bookingRepository, times(1)).findByPropertyIdAndStatusNotEndingOnOrAfter("prop1", BookingStatus.CANCELED, today);
+        verify(bookingRepository, never()).findByPropertyId(anyString());
+    }
+
+    @Test
+    void reportsConflictWithBookingHeldWithoutId() {
+        Booking unsaved = booking(null, "prop1", today.plusDays(1), today.plusDays(3), BookingStatus.ACTIVE);
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter("prop1", BookingStatus.CANCELED, today))
+                .thenReturn(List.of(unsaved));
+
+        assertEquals(Optional.of(new BookingConflict(null)), index.findBookingConflict("prop1", today.plusDays(2), today.plusDays(4), null));
+        assertEquals(Optional.of(new BookingConflict(null)), index.findBookingConflict("prop1", today.plusDays(2), today.plusDays(4), 5L));
+    }
+
+    @Test
+    void disabledIndexDelegatesToRepositoryProbes() {
+        AvailabilityIndex probing = new AvailabilityIndex(bookingRepository, blockRepository, blockRuleRepository, false, 100_000, new SimpleMeterRegistry());
+        when(bookingRepository.findFirstOverlappingBookingId("prop1", today.plusDays(1), today.plusDays(2), 3L))
+                .thenReturn(Optional.of(4L));
+        when(blockRepository.existsOverlapping("prop1", today.plusDays(1), today.plusDays(2))).thenReturn(true);
+
+        assertEquals(Optional.of(new BookingConflict(4L)), probing.findBookingConflict("prop1", today.plusDays(1), today.plusDays(2), 3L));
+        assertTrue(probing.overlapsBlock("prop1", today.plusDays(1), today.plusDays(2)));
+        assertFalse(probing.isResident("prop1"));
+    }
+
+    @Test
+    void appliesBookingEventsToResidentProperties() {
+        assertTrue(index.findBookingConflict("prop1", today.plusDays(1), today.plusDays(2), null).isEmpty());
+
+        Booking booking = booking(7L, "prop1", today.plusDays(1), today.plusDays(2), BookingStatus.ACTIVE);
+        index.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking));
+        assertEquals(Optional.of(new BookingConflict(7L)), index.findBookingConflict("prop1", today.plusDays(2), today.plusDays(4), null));
+
+        booking.setStatus(BookingStatus.CANCELED);
+        index.onBookingChanged(BookingChangedEvent.of(ChangeType.CANCELED, "prop1", booking));
+        assertTrue(index.findBookingConflict("prop1", today.plusDays(2), today.plusDays(4), null).isEmpty());
+
+        assertTrue(index.findBookingConflict("prop2", today.plusDays(1), today.plusDays(2), null).isEmpty());
+        booking.setStatus(BookingStatus.ACTIVE);
+        booking.setPropertyId("prop2");
+        index.onBookingChanged(BookingChangedEvent.of(ChangeType.REBOOKED, "prop1", booking));
+        assertTrue(index.findBookingConflict("prop1", today.plusDays(1), today.plusDays(2), null).isEmpty());
+        assertEquals(Optional.of(new BookingConflict(7L)), index.findBookingConflict("prop2", today.plusDays(1), today.plusDays(2), null));
+    }
+
+    @Test
+    void findsConflictBehindLongerEarlierInterval() {
+        Block longBlock = new Block("prop1", today.plusDays(1), today.plusDays(30), "Renovation");
+        longBlock.setId(1L);
+        Block shortBlock = new Block("prop1", today.plusDays(2), today.plusDays(3), "Cleaning");
+        shortBlock.setId(2L);
+        when(blockRepository.findByPropertyIdEndingOnOrAfter("prop1", today)).thenReturn(List.of(shortBlock, longBlock));
+
+        assertTrue(index.overlapsBlock("prop1", today.plusDays(20), today.plusDays(21)));
+        assertFalse(index.overlapsBlock("prop1", today.plusDays(31), today.plusDays(32)));
+
+        index.onBlockChanged(BlockChangedEvent.of(ChangeType.DELETED, "prop1", longBlock));
+        assertFalse(index.overlapsBlock("prop1", today.plusDays(20), today.plusDays(21)));
+        assertTrue(index.overlapsBlock("prop1", today.plusDays(3), today.plusDays(5)));
+    }
+
+    @Test
+    void recordsConflictsAndRowsScanned() {
+        Booking active = booking(1L, "prop1", today.plusDays(1), today.plusDays(3), BookingStatus.ACTIVE);
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter("prop1", BookingStatus.CANCELED, today))
+                .thenReturn(List.of(active));
+
+        index.findBookingConflict("prop1", today.plusDays(2), today.plusDays(2), null);
+        index.findBookingConflict("prop1", today.plusDays(5), today.plusDays(6), null);
+
+        assertEquals(1.0, meterRegistry.get("bookhost.conflicts").tag("type", "booking").counter().count());
+        assertEquals(2, meterRegistry.get("bookhost.overlap.rows.scanned").tag("source", "index").summary().count());
+        assertEquals(1.0, meterRegistry.get("bookhost.overlap.rows.scanned").tag("source", "load").summary().totalAmount());
+    }
+
+    @Test
+    void occupiedDaysClipsBookingsAndBlocksToRange() {
+        Booking active = booking(1L, "prop1", today.plusDays(1), today.plusDays(3), BookingStatus.ACTIVE);
+        Block block = new Block("prop1", today.plusDays(8), today.plusDays(40), "Renovation");
+        block.setId(2L);
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter("prop1", BookingStatus.CANCELED, today))
+                .thenReturn(List.of(active));
+        when(blockRepository.findByPropertyIdEndingOnOrAfter("prop1", today)).thenReturn(List.of(block));
+
+        BitSet days = index.occupiedDays("prop1", today.plusDays(2), today.plusDays(9));
+
+        assertEquals(BitSet.valueOf(new long[]{0b11000011}), days);
+    }
+
+    @Test
+    void availabilityOfPropertyWithNothingUpcomingIsNotKept() {
+        BitSet days = index.occupiedDays("unknown", today.plusDays(1), today.plusDays(7));
+
+        assertTrue(days.isEmpty());
+        assertFalse(index.isResident("unknown"));
+        assertEquals(0.0, meterRegistry.get("bookhost.availability.resident.properties").gauge().value());
+    }
+
+    private Booking booking(Long id, String propertyId, LocalDate start, LocalDate end, BookingStatus status) {
+        Booking booking = new Booking("Kyle Reese", "kyle@resistance.com", propertyId, start, end, status);
+        booking.setId(id);
+        return booking;
+    }
+}
@@ -0,0 +1,95 @@
+package com.book.bookhost.availability;
+
+import com.book.bookhost.model.RecurrenceFrequency;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceTest {
+
+    private final LocalDate monday = LocalDate.of(2030, 1, 7);
+
+    @Test
+    void weeklyRuleOverlapsOnlyItsOccurrences() {
+        // Monday and Tuesday every second week, through March
+        Recurrence rule = Recurrence.of(1L, monday, monday.plusDays(1), RecurrenceFrequency.WEEKLY, 2, LocalDate.of(2030, 3, 31));
+
+        assertTrue(rule.overlaps(monday.plusDays(14), monday.plusDays(14)));
+        assertTrue(rule.overlaps(monday.plusDays(15), monday.plusDays(20)));
+        assertFalse(rule.overlaps(monday.plusDays(2), monday.plusDays(13)));
+        assertFalse(rule.overlaps(monday.minusDays(10), monday.minusDays(1)));
+        // the last occurrence starts on 2030-03-18; the next would be 2030-04-01
+        assertEquals(LocalDate.of(2030, 3, 19), rule.lastEndDate());
+        assertTrue(rule.overlaps(LocalDate.of(2030, 3, 19), LocalDate.of(2030, 4, 30)));
+        assertFalse(rule.overlaps(LocalDate.of(2030, 3, 20), LocalDate.of(2030, 4, 30)));
+    }
+
+    @Test
+    void monthlyRuleFromThe31stClampsToMonthEnd() {
+        LocalDate start = LocalDate.of(2030, 1, 31);
+        Recurrence rule = Recurrence.of(1L, start, start, RecurrenceFrequency.MONTHLY, 1, LocalDate.of(2030, 12, 31));
+
+        assertTrue(rule.overlaps(LocalDate.of(2030, 2, 28), LocalDate.of(2030, 2, 28)));
+        assertFalse(rule.overlaps(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 30)));
+        assertTrue(rule.overlaps(LocalDate.of(2030, 3, 31), LocalDate.of(2030, 3, 31)));
+        assertTrue(rule.overlaps(LocalDate.of(2030, 4, 30), LocalDate.of(2030, 4, 30)));
+        assertEquals(LocalDate.of(2030, 12, 31), rule.lastEndDate());
+    }
+
+    @Test
+    void yearlyRuleCoversSeasonalClosure() {
+        LocalDate start = LocalDate.of(2030, 12, 20);
+        Recurrence rule = Recurrence.of(1L, start, LocalDate.of(2031, 1, 5), RecurrenceFrequency.YEARLY, 1, LocalDate.of(2040, 1, 1));
+
+        assertTrue(rule.overlaps(LocalDate.of(2036, 1, 3), LocalDate.of(2036, 1, 10)));
+        assertFalse(rule.overlaps(LocalDate.of(2036, 1, 6), LocalDate.of(2036, 12, 19)));
+        assertFalse(rule.overlaps(LocalDate.of(2040, 12, 20), LocalDate.of(2040, 12, 31)));
+        assertEquals(LocalDate.of(2040, 1, 5), rule.lastEndDate());
+    }
+
+    @Test
+    void overlapAndMarkingAgreeWithExpandedOccurrences() {
+        LocalDate start = LocalDate.of(2030, 1, 29);
+        LocalDate until = LocalDate.of(2032, 6, 30);
+        for (RecurrenceFrequency frequency : RecurrenceFrequency.values()) {
+            for (int interval = 1; interval <= 3; interval++) {
+                Recurrence rule = Recurrence.of(1L, start, start.plusDays(2), frequency, interval, until);
+                BitSet expanded = expand(start, 3, frequency, interval, until);
+                int base = (int) start.toEpochDay() - 30;
+                for (int from = 0; from < expanded.length() + 30; from += 5) {
+                    for (int to = from; to < from + 40; to += 3) {
+                        int next = expanded.nextSetBit(from);
+                        boolean expected = next >= 0 && next <= to;
+                        assertEquals(expected, rule.overlaps(base + from, base + to),
+                                frequency + "/" + interval + " [" + from + ", " + to + "]");
+
+                        BitSet marked = new BitSet();
+                        rule.markOverlapping(base + from, base + to, marked);
+                        assertEquals(expanded.get(from, to + 1), marked, frequency + "/" + interval);
+                    }
+                }
+            }
+        }
+    }
+
+    // bit i is day (start - 30 + i), set when an occurrence covers it
+    private static BitSet expand(LocalDate start, int length, RecurrenceFrequency frequency, int interval, LocalDate until) {
+        BitSet days = new BitSet();
+        int base = (int) start.toEpochDay() - 30;
+        for (int k = 0; ; k++) {
+            LocalDate occurrence = switch (frequency) {
+                case WEEKLY -> start.plusWeeks((long) interval * k);
+                case MONTHLY -> start.plusMonths((long) interval * k);
+                case YEARLY -> start.plusYears((long) interval * k);
+            };
+            if (occurrence.isAfter(until)) {
+                return days;
+            }
+            int first = (int) occurrence.toEpochDay() - base;
+            days.set(first, first + length);
+        }
+    }
+}
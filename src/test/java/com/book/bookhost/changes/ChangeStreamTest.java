@@ -0,0 +1,111 @@
+package com.book.bookhost.changes;
+
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.exception.TooManyRequestsException;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.model.RecurrenceFrequency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeStreamTest {
+
+    // sender tasks are collected and run by the test, which stands in for a stalled or a prompt sender pool
+    private final List<Runnable> senderTasks = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void fansOutOnlyToMatchingPropertyAndDropsSubscriberThatFallsBehind() {
+        ChangeStream stream = new ChangeStream(2, 10, Duration.ofMinutes(1), Duration.ofSeconds(10), 0, senderTasks::add,
+                meterRegistry, System::nanoTime);
+        stream.subscribe("PROP1");
+        stream.subscribe("PROP2");
+        runSenders();
+
+        for (long id = 1; id <= 3; id++) {
+            stream.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking(id, "PROP1")));
+        }
+
+        // one drain for the PROP1 subscriber, none for PROP2, and the committing thread never waited
+        assertEquals(1, senderTasks.size());
+        runSenders();
+        assertEquals(1, stream.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("bookhost.changes.disconnected").tag("reason", "slow").counter().count());
+    }
+
+    @Test
+    void moveBetweenPropertiesReachesSubscribersOfBoth() {
+        ChangeStream stream = new ChangeStream(16, 10, Duration.ofMinutes(1), Duration.ofSeconds(10), 0, senderTasks::add,
+                meterRegistry, System::nanoTime);
+        stream.subscribe("PROP1");
+        stream.subscribe("PROP2");
+        stream.subscribe(null);
+        runSenders();
+
+        stream.onBookingChanged(BookingChangedEvent.of(ChangeType.UPDATED, "PROP2", booking(7L, "PROP1")));
+
+        assertEquals(3, senderTasks.size());
+        runSenders();
+        assertEquals(3.0, meterRegistry.get("bookhost.changes.delivered").counter().count());
+        assertEquals(3, stream.subscriberCount());
+    }
+
+    @Test
+    void pushesBlockRuleChanges() {
+        ChangeStream stream = new ChangeStream(16, 10, Duration.ofMinutes(1), Duration.ofSeconds(10), 0, senderTasks::add,
+                meterRegistry, System::nanoTime);
+        stream.subscribe("PROP1");
+        runSenders();
+
+        BlockRule rule = new BlockRule("PROP1", today.plusDays(1), today.plusDays(2), RecurrenceFrequency.WEEKLY, 1,
+                today.plusDays(30), "Cleaning");
+        rule.setId(3L);
+        stream.onBlockRuleChanged(BlockRuleChangedEvent.of(ChangeType.CREATED, rule));
+
+        assertEquals(1, senderTasks.size());
+        runSenders();
+        assertEquals(1.0, meterRegistry.get("bookhost.changes.delivered").counter().count());
+    }
+
+    @Test
+    void rejectsSubscribersOverTheLimit() {
+        ChangeStream stream = new ChangeStream(16, 1, Duration.ofMinutes(1), Duration.ofSeconds(10), 0, senderTasks::add,
+                meterRegistry, System::nanoTime);
+        stream.subscribe(null);
+
+        assertThrows(TooManyRequestsException.class, () -> stream.subscribe("PROP1"));
+        assertEquals(1, stream.subscriberCount());
+    }
+
+    private void runSenders() {
+        while (!senderTasks.isEmpty()) {
+            senderTasks.remove(0).run();
+        }
+    }
+
+    private Booking booking(Long id, String propertyId) {
+        Booking booking = new Booking("Sarah Connor", "sarah@connor.com", propertyId, today.plusDays(1), today.plusDays(2),
+                BookingStatus.ACTIVE);
+        booking.setId(id);
+        return booking;
+    }
+}
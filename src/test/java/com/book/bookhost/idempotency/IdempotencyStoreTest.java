@@ -0,0 +1,123 @@
+package com.book.bookhost.idempotency;
+
+import com.book.bookhost.exception.ConflictException;
+import com.book.bookhost.exception.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(5), new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void replaysFirstResponseForSameKey() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<Integer> first = store.execute("bookings", "client-a", "key-1", "body", calls::incrementAndGet);
+        ResponseEntity<Integer> retry = store.execute("bookings", "client-a", "key-1", "body", calls::incrementAndGet);
+
+        assertEquals(1, first.getBody());
+        assertEquals(1, retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(1, calls.get());
+        assertEquals(2, store.execute("blocks", "client-a", "key-1", "body", calls::incrementAndGet).getBody());
+        assertEquals(3, store.execute("bookings", "client-a", null, "body", calls::incrementAndGet).getBody());
+        // another client reusing the key gets its own request run, not the first client's response
+        assertEquals(4, store.execute("bookings", "client-b", "key-1", "body", calls::incrementAndGet).getBody());
+    }
+
+    @Test
+    void replaysSnapshotNotTheReturnedInstance() {
+        List<String> created = new ArrayList<>(List.of("created"));
+        store.execute("bookings", "client-a", "key-1", "body", () -> created);
+        created.set(0, "changed later");
+
+        ResponseEntity<List<String>> retry = store.execute("bookings", "client-a", "key-1", "body", () -> created);
+
+        assertEquals(List.of("created"), retry.getBody());
+        assertNotSame(created, retry.getBody());
+    }
+
+    @Test
+    void coalescesConcurrentDuplicates() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<ResponseEntity<Integer>> first = executor.submit(() -> store.execute("bookings", "client-a", "key-1", "body",
+                    () -> {
+                        await(release);
+                        return calls.incrementAndGet();
+                    }));
+            // the first request has claimed the key and is blocked in its action
+            while (meterRegistry.get("bookhost.idempotency").tag("outcome", "executed").counter().count() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<?>[] duplicates = new Future<?>[7];
+            for (int i = 0; i < duplicates.length; i++) {
+                duplicates[i] = executor.submit(() -> store.execute("bookings", "client-a", "key-1", "body",
+                        calls::incrementAndGet));
+            }
+            release.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).getBody());
+            for (Future<?> duplicate : duplicates) {
+                assertEquals(1, ((ResponseEntity<?>) duplicate.get(5, TimeUnit.SECONDS)).getBody());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void forgetsFailedRequests() {
+        assertThrows(ValidationException.class, () -> store.execute("bookings", "client-a", "key-1", "body", () -> {
+            throw new ValidationException("Start Date cannot be before Today");
+        }));
+
+        assertEquals("created", store.execute("bookings", "client-a", "key-1", "body", () -> "created").getBody());
+    }
+
+    @Test
+    void rejectsKeyReusedForDifferentRequest() {
+        store.execute("bookings", "client-a", "key-1", "body", () -> "created");
+
+        assertThrows(ConflictException.class,
+                () -> store.execute("bookings", "client-a", "key-1", "other body", () -> "created"));
+        assertThrows(ValidationException.class, () -> store.execute("bookings", "client-a", " ", "body", () -> "created"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.archive.ArchivalJob;
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockHistoryRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingHistoryRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArchivalJobIntegrationTest {
+
+    private static final String GUEST = "Miles Dyson";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ArchivalJob archivalJob;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockingRepository blockRepository;
+
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
+    @Autowired
+    private BlockHistoryRepository blockHistoryRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
+        bookingHistoryRepository.deleteAll();
+        blockHistoryRepository.deleteAll();
+        availabilityIndex.clear();
+    }
+
+    @Test
+    void movesEndedRowsAndKeepsFutureInventory() {
+        for (int i = 0; i < 5; i++) {
+            bookingRepository.save(new Booking(GUEST, "miles@cyberdyne.com", "PROP1",
+                    today.minusDays(20 - 3L * i), today.minusDays(19 - 3L * i), BookingStatus.ACTIVE));
+        }
+        bookingRepository.save(new Booking(GUEST, "miles@cyberdyne.com", "PROP1", today.minusDays(1), today, BookingStatus.ACTIVE));
+        blockRepository.save(new Block("PROP1", today.minusDays(30), today.minusDays(25), "Maintenance"));
+        blockRepository.save(new Block("PROP1", today.plusDays(5), today.plusDays(6), "Cleaning"));
+
+        ArchivalJob.ArchiveResult result = archivalJob.archiveEndedBefore(today);
+
+        assertThat(result.bookings()).isEqualTo(5);
+        assertThat(result.blocks()).isEqualTo(1);
+        assertThat(bookingRepository.findAll()).singleElement()
+                .satisfies(b -> assertThat(b.getEndDate()).isEqualTo(today));
+        assertThat(blockRepository.findAll()).singleElement()
+                .satisfies(b -> assertThat(b.getReason()).isEqualTo("Cleaning"));
+        assertThat(bookingHistoryRepository.count()).isEqualTo(5);
+        assertThat(blockHistoryRepository.findByPropertyId("PROP1")).singleElement()
+                .satisfies(b -> assertThat(b.getArchivedAt()).isNotNull());
+    }
+
+    @Test
+    void archivedBookingsStayReadable() throws Exception {
+        Booking past = bookingRepository.save(new Booking(GUEST, "miles@cyberdyne.com", "PROP1",
+                today.minusDays(10), today.minusDays(8), BookingStatus.ACTIVE));
+        Booking future = bookingRepository.save(new Booking(GUEST, "miles@cyberdyne.com", "PROP1",
+                today.plusDays(1), today.plusDays(2), BookingStatus.ACTIVE));
+
+        archivalJob.archiveEndedBefore(today);
+
+        mockMvc.perform(get("/api/bookings/" + past.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.guestName").value(GUEST))
+                .andExpect(jsonPath("$.endDate").value(today.minusDays(8).toString()));
+
+        mockMvc.perform(get("/api/bookings/guestName").param("guestName", GUEST))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(get("/api/bookings/guestName/page").param("guestName", GUEST).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(past.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(past.getId()));
+
+        mockMvc.perform(get("/api/bookings/guestName/page").param("guestName", GUEST)
+                        .param("after", String.valueOf(past.getId())).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(future.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void rebookRestoresArchivedCanceledBooking() throws Exception {
+        Booking canceled = bookingRepository.save(new Booking(GUEST, "miles@cyberdyne.com", "PROP1",
+                today.minusDays(10), today.minusDays(8), BookingStatus.CANCELED));
+        archivalJob.archiveEndedBefore(today);
+        assertThat(bookingRepository.findById(canceled.getId())).isEmpty();
+
+        BookingRequest req = new BookingRequest(GUEST, "miles@cyberdyne.com", "PROP1", today.plusDays(3), today.plusDays(4));
+        mockMvc.perform(post("/api/bookings/" + canceled.getId() + "/rebook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(canceled.getId()))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+
+        assertThat(bookingRepository.findById(canceled.getId())).isPresent();
+        assertThat(bookingHistoryRepository.findById(canceled.getId())).isEmpty();
+    }
+}
@@ -1,27 +1,38 @@
 package com.book.bookhost.integTests;
 
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.config.WireFormatConfig;
 import com.book.bookhost.dto.BlockRequest;
 import com.book.bookhost.model.Block;
 import com.book.bookhost.model.Booking;
 import com.book.bookhost.model.BookingStatus;
 import com.book.bookhost.repository.BlockingRepository;
 import com.book.bookhost.repository.BookingRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -36,13 +47,20 @@ public class BlockControllerIntegrationTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void setup() {
         blockRepository.deleteAll();
         bookingRepository.deleteAll();
+        availabilityIndex.clear();
     }
 
     @Test
@@ -60,6 +78,85 @@ public class BlockControllerIntegrationTest {
         assertThat(blocks).hasSize(1);
     }
 
+    @Test
+    void testGetBlocksConditionalOnPropertyChangeCounter() throws Exception {
+        BlockRequest req = new BlockRequest("PROP-ETAG", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3), "Maintenance");
+        String created = mockMvc.perform(post("/api/blocks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long blockId = objectMapper.readValue(created, Block.class).getId();
+
+        String etag = mockMvc.perform(get("/api/blocks/PROP-ETAG"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/blocks/PROP-ETAG").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        BlockRequest moved = new BlockRequest("PROP-ETAG", LocalDate.now().plusDays(5), LocalDate.now().plusDays(6), "Painting");
+        mockMvc.perform(put("/api/blocks/{id}", blockId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moved)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/blocks/PROP-ETAG").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$[0].reason").value("Painting"));
+        mockMvc.perform(put("/api/blocks/{id}", blockId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testGetBlocksAsCborWithEpochDayDates() throws Exception {
+        LocalDate start = LocalDate.now().plusDays(1);
+        blockRepository.save(new Block("PROP-CBOR", start, start.plusDays(2), "Maintenance"));
+
+        byte[] body = mockMvc.perform(get("/api/blocks/PROP-CBOR").accept(WireFormatConfig.CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormatConfig.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode blocks = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(blocks).hasSize(1);
+        assertThat(blocks.get(0).get("startDate").asLong()).isEqualTo(start.toEpochDay());
+        assertThat(blocks.get(0).get("reason").asText()).isEqualTo("Maintenance");
+    }
+
+    @Test
+    void testImportBlocksFromCsvReportsRejectedRows() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(10);
+        bookingRepository.save(new Booking("T-800", "terminator@example.com", "PROP-CSV1", day, day.plusDays(1), BookingStatus.ACTIVE));
+        String csv = "\uFEFFpropertyId,startDate,endDate,reason\n"
+                + "PROP-CSV1," + day.plusDays(3) + "," + day.plusDays(4) + ",\"Painting, hall\"\n"
+                + "PROP-CSV2," + day + "," + day.plusDays(2) + ",Owner stay\n"
+                + "PROP-CSV1," + day + "," + day.plusDays(2) + ",Overlaps booking\n"
+                + "\n"
+                + "PROP-CSV2,not-a-date," + day + ",Broken\n"
+                + "," + day + "," + day + ",No property\n";
+
+        mockMvc.perform(multipart("/api/blocks/import")
+                        .file(new MockMultipartFile("file", "blocks.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(5))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[0].line").value(4))
+                .andExpect(jsonPath("$.errors[0].error").value(startsWith("Block dates overlap existing booking")))
+                .andExpect(jsonPath("$.errors[1].line").value(6))
+                .andExpect(jsonPath("$.errors[2].line").value(7));
+
+        assertThat(blockRepository.findByPropertyId("PROP-CSV1")).extracting(Block::getReason).containsExactly("Painting, hall");
+        assertThat(blockRepository.findByPropertyId("PROP-CSV2")).hasSize(1);
+    }
+
     @Test
     void testCreateBlockOverlapWithBookingShouldFail() throws Exception {
         Booking booking = new Booking("T-800", "terminator@example.com", "PROP1", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4), BookingStatus.ACTIVE);
@@ -115,4 +212,33 @@ public class BlockControllerIntegrationTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Blocks not found")));
     }
+
+    @Test
+    void testGetBlocksServedFromQueryCacheUntilBlockChanges() throws Exception {
+        Block block = blockRepository.save(new Block("PROP1", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2), "Maintenance"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        mockMvc.perform(get("/api/blocks/PROP1")).andExpect(status().isOk());
+        long hits = statistics.getQueryCacheHitCount();
+        mockMvc.perform(get("/api/blocks/PROP1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].reason").value("Maintenance"));
+        assertThat(statistics.getQueryCacheHitCount()).isGreaterThan(hits);
+
+        BlockRequest updateReq = new BlockRequest("PROP1", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2), "Cleaning up");
+        mockMvc.perform(put("/api/blocks/" + block.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateReq)))
+                .andExpect(status().isOk());
+        BlockRequest secondReq = new BlockRequest("PROP1", LocalDate.now().plusDays(5), LocalDate.now().plusDays(6), "Painting");
+        mockMvc.perform(post("/api/blocks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(secondReq)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/blocks/PROP1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@.id == " + block.getId() + ")].reason").value("Cleaning up"));
+    }
 }
@@ -0,0 +1,143 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.dto.BlockRuleRequest;
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.model.RecurrenceFrequency;
+import com.book.bookhost.repository.BlockRuleRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BlockRuleControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlockRuleRepository blockRuleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private OccupancyBitmapIndex occupancyIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        blockRuleRepository.deleteAll();
+        bookingRepository.deleteAll();
+        availabilityIndex.clear();
+        occupancyIndex.rebuild();
+    }
+
+    @Test
+    void weeklyRuleBlocksEveryOccurrenceUntilDeleted() throws Exception {
+        BlockRuleRequest cleaning = new BlockRuleRequest("PROP-RULE", today.plusDays(1), today.plusDays(1),
+                RecurrenceFrequency.WEEKLY, null, today.plusDays(60), "Cleaning");
+        String created = mockMvc.perform(post("/api/block-rules")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cleaning)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.interval", is(1)))
+                .andExpect(jsonPath("$.lastEndDate", is(today.plusDays(57).toString())))
+                .andReturn().getResponse().getContentAsString();
+        Long ruleId = objectMapper.readTree(created).get("id").asLong();
+        assertThat(blockRuleRepository.count()).isEqualTo(1);
+
+        BookingRequest overSecondCleaning = new BookingRequest("Sarah Connor", "sarah@connor.com", "PROP-RULE",
+                today.plusDays(6), today.plusDays(9));
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(overSecondCleaning)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingRequest("Sarah Connor", "sarah@connor.com",
+                                "PROP-RULE", today.plusDays(2), today.plusDays(7)))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/properties/{propertyId}/availability", "PROP-RULE")
+                        .param("from", today.plusDays(14).toString())
+                        .param("to", today.plusDays(16).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.spans[1].state", is("BUSY")))
+                .andExpect(jsonPath("$.spans[1].start", is(today.plusDays(15).toString())))
+                .andExpect(jsonPath("$.spans[1].days", is(1)));
+
+        mockMvc.perform(delete("/api/block-rules/{id}", ruleId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingRequest("Sarah Connor", "sarah@connor.com",
+                                "PROP-RULE", today.plusDays(8), today.plusDays(9)))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ruleOverlappingBookingIsRejected() throws Exception {
+        bookingRepository.save(new Booking("John Connor", "theone@test.com", "PROP-RULE",
+                today.plusDays(40), today.plusDays(41), BookingStatus.ACTIVE));
+
+        // the first closure already covers the booking
+        BlockRuleRequest closure = new BlockRuleRequest("PROP-RULE", today.plusDays(33), today.plusDays(45),
+                RecurrenceFrequency.YEARLY, 1, today.plusYears(3), "Closed");
+        mockMvc.perform(post("/api/block-rules")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(closure)))
+                .andExpect(status().isBadRequest());
+        assertThat(blockRuleRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void occurrenceLongerThanItsPeriodIsRejected() throws Exception {
+        BlockRuleRequest tooLong = new BlockRuleRequest("PROP-RULE", today.plusDays(1), today.plusDays(8),
+                RecurrenceFrequency.WEEKLY, 1, today.plusDays(60), "Cleaning");
+        mockMvc.perform(post("/api/block-rules")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooLong)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rulesAreListedByProperty() throws Exception {
+        blockRuleRepository.save(new BlockRule("PROP-RULE", today.plusDays(1), today.plusDays(1),
+                RecurrenceFrequency.MONTHLY, 1, today.plusMonths(6), "Inspection"));
+
+        mockMvc.perform(get("/api/block-rules").param("propertyId", "PROP-RULE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].frequency", is("MONTHLY")))
+                .andExpect(jsonPath("$[0].reason", is("Inspection")));
+        mockMvc.perform(get("/api/block-rules").param("propertyId", "PROP-NONE"))
+                .andExpect(status().isNotFound());
+    }
+}
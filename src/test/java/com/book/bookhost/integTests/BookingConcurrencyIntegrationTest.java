@@ -0,0 +1,106 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.exception.ValidationException;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+@SpringBootTest
+class BookingConcurrencyIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 40;
+    private static final String[] PROPERTIES = {"hot-1", "hot-2", "hot-3"};
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockingRepository blockRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
+        availabilityIndex.clear();
+    }
+
+    @Test
+    void concurrentCreates_neverDoubleBookAProperty() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalDate from = base.plusDays(random.nextInt(60));
+                    BookingRequest request = new BookingRequest("Guest", "guest@test.com",
+                            PROPERTIES[random.nextInt(PROPERTIES.length)], from, from.plusDays(random.nextInt(4)));
+                    try {
+                        bookingService.createBooking(request);
+                        created.incrementAndGet();
+                    } catch (ValidationException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(created.get()).isPositive();
+        assertThat(created.get() + rejected.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD);
+        for (String propertyId : PROPERTIES) {
+            List<Booking> bookings = bookingRepository.findByPropertyId(propertyId).stream()
+                    .filter(b -> b.getStatus() != BookingStatus.CANCELED)
+                    .toList();
+            for (int i = 0; i < bookings.size(); i++) {
+                for (int j = i + 1; j < bookings.size(); j++) {
+                    Booking a = bookings.get(i);
+                    Booking b = bookings.get(j);
+                    if (!(a.getEndDate().isBefore(b.getStartDate()) || a.getStartDate().isAfter(b.getEndDate()))) {
+                        fail("Bookings " + a.getId() + " and " + b.getId() + " overlap on " + propertyId);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.book.bookhost.integTests;
 
+import com.book.bookhost.availability.AvailabilityIndex;
 import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.idempotency.IdempotencyStore;
 import com.book.bookhost.model.Booking;
 import com.book.bookhost.model.BookingStatus;
 import com.book.bookhost.repository.BookingRepository;
@@ -14,7 +16,10 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,9 +39,15 @@ class BookingControllerIntegrationTest {
     @Autowired
     private BlockingRepository blockRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     private LocalDate startDate;
     private LocalDate endDate;
 
@@ -46,6 +57,8 @@ class BookingControllerIntegrationTest {
     void setUp() {
         bookingRepository.deleteAll();
         blockRepository.deleteAll();
+        availabilityIndex.clear();
+        idempotencyStore.clear();
         startDate = LocalDate.now().plusDays(1);
         endDate = LocalDate.now().plusDays(3);
     }
@@ -62,6 +75,35 @@ class BookingControllerIntegrationTest {
                 .andExpect(jsonPath("$.status", is(BookingStatus.ACTIVE.name())));
     }
 
+    @Test
+    void createBooking_retryWithIdempotencyKey_replaysOriginalBooking() throws Exception {
+        BookingRequest request = new BookingRequest("John Connor", "theone@test.com", "prop1", startDate, endDate);
+        String body = objectMapper.writeValueAsString(request);
+
+        String created = mockMvc.perform(post("/api/bookings")
+                        .header(IdempotencyStore.HEADER, "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readValue(created, Booking.class).getId();
+
+        mockMvc.perform(post("/api/bookings")
+                        .header(IdempotencyStore.HEADER, "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id", is(id.intValue())));
+
+        mockMvc.perform(post("/api/bookings")
+                        .header(IdempotencyStore.HEADER, "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, bookingRepository.findByPropertyId("prop1").size());
+    }
+
     @Test
     void createBooking_invalidDates_shouldFail() throws Exception {
         BookingRequest request = new BookingRequest("John Connor", "theone@test.com", "prop1", endDate, startDate);
@@ -73,6 +115,32 @@ class BookingControllerIntegrationTest {
     }
 
 
+    @Test
+    void createBookingBatch_reportsPerItemResults() throws Exception {
+        Booking existing = bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", startDate, endDate, BookingStatus.ACTIVE));
+
+        List<BookingRequest> batch = List.of(
+                new BookingRequest("Sarah Connor", "sarah@test.com", "prop2", startDate, endDate),
+                new BookingRequest("Kyle Reese", "kyle@test.com", "prop1", startDate, endDate),
+                new BookingRequest("Miles Dyson", "miles@test.com", "prop2", startDate.plusDays(1), endDate.plusDays(1)),
+                new BookingRequest("", "nobody@test.com", "prop3", startDate, endDate),
+                new BookingRequest("John Connor", "theone@test.com", "prop2", endDate.plusDays(1), endDate.plusDays(2)));
+
+        mockMvc.perform(post("/api/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.rejected", is(3)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[1].error", containsString("Booking id: " + existing.getId())))
+                .andExpect(jsonPath("$.results[2].error", containsString("batch item 0")))
+                .andExpect(jsonPath("$.results[3].error", containsString("guestName")))
+                .andExpect(jsonPath("$.results[4].booking.propertyId", is("prop2")));
+
+        assert(bookingRepository.findByPropertyId("prop2").size() == 2);
+    }
+
     @Test
     void cancelBooking_success() throws Exception {
         Booking booking = bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", startDate, endDate, BookingStatus.ACTIVE));
@@ -132,6 +200,36 @@ class BookingControllerIntegrationTest {
     }
 
 
+    @Test
+    void getBooking_conditionalOnVersionETag() throws Exception {
+        Booking booking = bookingRepository.save(new Booking("John", "theone@test.com", "prop1", startDate, endDate, BookingStatus.ACTIVE));
+        String etag = mockMvc.perform(get("/api/bookings/{id}", booking.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/bookings/{id}", booking.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        BookingRequest request = new BookingRequest("Sarah Connor", "mom_of_theone@test.com", "prop1", startDate, endDate);
+        mockMvc.perform(put("/api/bookings/{id}", booking.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(get("/api/bookings/{id}", booking.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.guestName", is("Sarah Connor")));
+        mockMvc.perform(put("/api/bookings/{id}", booking.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void deleteBooking_success() throws Exception {
         Booking booking = bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", startDate, endDate, BookingStatus.ACTIVE));
@@ -153,6 +251,21 @@ class BookingControllerIntegrationTest {
                 .andExpect(jsonPath("$.guestName", is("John Connor")));
     }
 
+    @Test
+    void getBooking_afterCancel_neverServesStaleStatus() throws Exception {
+        Booking booking = bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", startDate, endDate, BookingStatus.ACTIVE));
+
+        mockMvc.perform(get("/api/bookings/{id}", booking.getId()))
+                .andExpect(jsonPath("$.status", is(BookingStatus.ACTIVE.name())));
+
+        mockMvc.perform(post("/api/bookings/{id}/cancel", booking.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/bookings/{id}", booking.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(BookingStatus.CANCELED.name())));
+    }
+
     @Test
     void getBooking_notFound() throws Exception {
         mockMvc.perform(get("/api/bookings/{id}", 1L))
@@ -185,4 +298,40 @@ class BookingControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getBookingByName_ignoresCaseAndSurroundingSpaces() throws Exception {
+        bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", startDate, endDate, BookingStatus.ACTIVE));
+
+        mockMvc.perform(get("/api/bookings/guestName")
+                        .param("guestName", "  john CONNOR "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].guestName", is("John Connor")));
+    }
+
+    @Test
+    void getBookingPageByName_walksPagesWithCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop" + i, startDate, endDate, BookingStatus.ACTIVE));
+        }
+        bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop9", startDate, endDate, BookingStatus.CANCELED));
+
+        String firstPage = mockMvc.perform(get("/api/bookings/guestName/page")
+                        .param("guestName", "john connor")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", is(2)))
+                .andExpect(jsonPath("$.nextCursor").isNumber())
+                .andReturn().getResponse().getContentAsString();
+        long cursor = objectMapper.readTree(firstPage).get("nextCursor").asLong();
+
+        mockMvc.perform(get("/api/bookings/guestName/page")
+                        .param("guestName", "john connor")
+                        .param("size", "2")
+                        .param("after", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", is(1)))
+                .andExpect(jsonPath("$.items[0].propertyId", is("prop2")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
 }
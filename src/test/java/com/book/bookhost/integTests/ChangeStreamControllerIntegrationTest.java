@@ -0,0 +1,79 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeStreamControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        availabilityIndex.clear();
+    }
+
+    @Test
+    void pushesCommittedBookingChangesOfSubscribedProperty() throws Exception {
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/changes").param("propertyId", "PROP-SSE")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        for (String propertyId : new String[] {"PROP-OTHER", "PROP-SSE"}) {
+            mockMvc.perform(post("/api/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new BookingRequest("Sarah Connor", "sarah@connor.com",
+                                    propertyId, today.plusDays(1), today.plusDays(2)))))
+                    .andExpect(status().isOk());
+        }
+
+        String events = awaitContent(stream, "event:booking");
+        assertThat(stream.getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(events).contains("\"propertyId\":\"PROP-SSE\"", "\"type\":\"CREATED\"")
+                .doesNotContain("PROP-OTHER")
+                .doesNotContain("sarah@connor.com");
+    }
+
+    // notifications are written by the sender threads, after the creating request has returned
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        return content;
+    }
+}
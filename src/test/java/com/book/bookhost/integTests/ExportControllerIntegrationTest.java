@@ -0,0 +1,147 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.archive.ArchivalJob;
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.config.WireFormatConfig;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockHistoryRepository;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingHistoryRepository;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockingRepository blockRepository;
+
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
+    @Autowired
+    private BlockHistoryRepository blockHistoryRepository;
+
+    @Autowired
+    private ArchivalJob archivalJob;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
+        bookingHistoryRepository.deleteAll();
+        blockHistoryRepository.deleteAll();
+        availabilityIndex.clear();
+    }
+
+    @Test
+    void exportsFilteredBookingsAsNdjsonIncludingArchived() throws Exception {
+        Booking past = bookingRepository.save(new Booking("Sarah Connor", "sarah@connor.com", "PROP1",
+                today.minusDays(10), today.minusDays(8), BookingStatus.ACTIVE));
+        archivalJob.archiveEndedBefore(today);
+        Booking future = bookingRepository.save(new Booking("Sarah Connor", "sarah@connor.com", "PROP1",
+                today.plusDays(1), today.plusDays(2), BookingStatus.ACTIVE));
+        bookingRepository.save(new Booking("John Connor", "john@connor.com", "PROP1",
+                today.plusDays(3), today.plusDays(4), BookingStatus.CANCELED));
+        bookingRepository.save(new Booking("Kyle Reese", "kyle@reese.com", "PROP2",
+                today.plusDays(1), today.plusDays(2), BookingStatus.ACTIVE));
+
+        String body = export(get("/api/export/bookings")
+                .param("propertyId", "PROP1")
+                .param("status", "ACTIVE")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).endsWith("\n");
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        // live rows first, then archived ones
+        assertThat(objectMapper.readTree(lines.get(0)).get("id").asLong()).isEqualTo(future.getId());
+        assertThat(objectMapper.readTree(lines.get(1)).get("id").asLong()).isEqualTo(past.getId());
+
+        String liveOnly = export(get("/api/export/bookings")
+                .param("propertyId", "PROP1")
+                .param("status", "ACTIVE")
+                .param("includeArchived", "false"))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(liveOnly.lines()).hasSize(1);
+    }
+
+    @Test
+    void exportsBlocksInDateRangeAsCborSequence() throws Exception {
+        blockRepository.save(new Block("PROP1", today.plusDays(1), today.plusDays(3), "Maintenance"));
+        blockRepository.save(new Block("PROP1", today.plusDays(20), today.plusDays(22), "Painting"));
+
+        byte[] body = export(get("/api/export/blocks")
+                .param("from", today.toString())
+                .param("to", today.plusDays(5).toString())
+                .accept(WireFormatConfig.CBOR_SEQ))
+                .andExpect(content().contentType(WireFormatConfig.CBOR_SEQ))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (MappingIterator<JsonNode> items = new ObjectMapper(new CBORFactory()).readerFor(JsonNode.class).readValues(body)) {
+            List<JsonNode> blocks = items.readAll();
+            assertThat(blocks).singleElement().satisfies(block -> {
+                assertThat(block.get("reason").asText()).isEqualTo("Maintenance");
+                assertThat(block.get("startDate").asLong()).isEqualTo(today.plusDays(1).toEpochDay());
+            });
+        }
+    }
+
+    @Test
+    void rejectsInvertedDateRange() throws Exception {
+        mockMvc.perform(get("/api/export/bookings")
+                        .param("from", today.plusDays(5).toString())
+                        .param("to", today.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions export(MockHttpServletRequestBuilder exportRequest) throws Exception {
+        MvcResult started = mockMvc.perform(exportRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,110 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.repository.BlockingRepository;
+import com.book.bookhost.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PropertyControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockingRepository blockRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private OccupancyBitmapIndex occupancyIndex;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
+        availabilityIndex.clear();
+        occupancyIndex.rebuild();
+    }
+
+    @Test
+    void availability_mergesBookingsAndBlocksIntoSpans() throws Exception {
+        bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", today.plusDays(2), today.plusDays(4), BookingStatus.ACTIVE));
+        bookingRepository.save(new Booking("Sarah Connor", "sarah@test.com", "prop1", today.plusDays(9), today.plusDays(9), BookingStatus.CANCELED));
+        blockRepository.save(new Block("prop1", today.plusDays(6), today.plusDays(7), "Maintenance"));
+
+        mockMvc.perform(get("/api/properties/{propertyId}/availability", "prop1")
+                        .param("from", today.plusDays(1).toString())
+                        .param("to", today.plusDays(10).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.spans.length()", is(5)))
+                .andExpect(jsonPath("$.spans[0].state", is("FREE")))
+                .andExpect(jsonPath("$.spans[0].days", is(1)))
+                .andExpect(jsonPath("$.spans[1].state", is("BUSY")))
+                .andExpect(jsonPath("$.spans[1].start", is(today.plusDays(2).toString())))
+                .andExpect(jsonPath("$.spans[1].days", is(3)))
+                .andExpect(jsonPath("$.spans[3].state", is("BUSY")))
+                .andExpect(jsonPath("$.spans[3].days", is(2)))
+                .andExpect(jsonPath("$.spans[4].state", is("FREE")))
+                .andExpect(jsonPath("$.spans[4].days", is(3)));
+    }
+
+    @Test
+    void availability_invalidRange_shouldFail() throws Exception {
+        mockMvc.perform(get("/api/properties/{propertyId}/availability", "prop1")
+                        .param("from", today.plusDays(5).toString())
+                        .param("to", today.plusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void available_returnsPropertiesFreeForWholeRange() throws Exception {
+        Booking booking = bookingRepository.save(new Booking("John Connor", "theone@test.com", "prop1", today.plusDays(2), today.plusDays(4), BookingStatus.ACTIVE));
+        blockRepository.save(new Block("prop2", today.plusDays(5), today.plusDays(6), "Maintenance"));
+        bookingRepository.save(new Booking("Sarah Connor", "sarah@test.com", "prop3", today.plusDays(2), today.plusDays(3), BookingStatus.CANCELED));
+        bookingRepository.save(new Booking("Kyle Reese", "kyle@test.com", "prop4", today.plusDays(10), today.plusDays(12), BookingStatus.ACTIVE));
+        occupancyIndex.rebuild();
+
+        mockMvc.perform(get("/api/properties/available")
+                        .param("from", today.plusDays(2).toString())
+                        .param("to", today.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.propertyIds", containsInAnyOrder("prop3", "prop4")));
+
+        // the index follows cancellations without a rebuild
+        mockMvc.perform(post("/api/bookings/{id}/cancel", booking.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/properties/available")
+                        .param("from", today.plusDays(2).toString())
+                        .param("to", today.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.propertyIds", containsInAnyOrder("prop1", "prop3", "prop4")));
+    }
+}
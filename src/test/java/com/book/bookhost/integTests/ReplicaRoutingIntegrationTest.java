@@ -0,0 +1,128 @@
+package com.book.bookhost.integTests;
+
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.availability.OccupancyBitmapIndex;
+import com.book.bookhost.cache.BookingCache;
+import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// the local replica is a second H2 database nothing replicates into, so a row's location shows where a read went
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("replica")
+class ReplicaRoutingIntegrationTest {
+
+    private static final long REPLICA_ONLY_ID = 900_001L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private OccupancyBitmapIndex occupancyIndex;
+
+    @Autowired
+    private BookingCache bookingCache;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        new JdbcTemplate(replicaDataSource).update("delete from bkn_bookings");
+        bookingRepository.deleteAll();
+        bookingCache.clear();
+        availabilityIndex.clear();
+        occupancyIndex.rebuild();
+    }
+
+    @Test
+    void readsAreServedByTheReplica() throws Exception {
+        new JdbcTemplate(replicaDataSource).update("insert into bkn_bookings (id, guest_name, guest_name_normalized,"
+                        + " guest_email, property_id, start_date, end_date, status, version)"
+                        + " values (?, 'Ellen Ripley', 'ellen ripley', 'ellen@ripley.com', 'PROP-REPLICA', ?, ?, 'ACTIVE', 0)",
+                REPLICA_ONLY_ID, today.plusDays(1), today.plusDays(3));
+
+        mockMvc.perform(get("/api/bookings/" + REPLICA_ONLY_ID).header("X-Client-Id", "reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.guestName", is("Ellen Ripley")));
+        // asked of the primary directly, as the repository's read-only transaction would go to the replica too
+        assertThat(new JdbcTemplate(primaryDataSource).queryForObject(
+                "select count(*) from bkn_bookings where id = ?", Integer.class, REPLICA_ONLY_ID)).isZero();
+    }
+
+    @Test
+    void writerReadsItsOwnWriteFromThePrimary() throws Exception {
+        BookingRequest request = new BookingRequest("John Connor", "john@connor.com", "PROP-RYW",
+                today.plusDays(1), today.plusDays(4));
+        String created = mockMvc.perform(post("/api/bookings")
+                        .header("X-Client-Id", "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        // asked first, so the miss is not masked by an entry the writer's read would cache
+        mockMvc.perform(get("/api/bookings/" + id).header("X-Client-Id", "someone-else"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/bookings/" + id).header("X-Client-Id", "writer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.guestName", is("John Connor")));
+    }
+
+    @Test
+    void overlapChecksSeeThePrimaryWhateverTheClient() throws Exception {
+        BookingRequest first = new BookingRequest("John Connor", "john@connor.com", "PROP-OVERLAP",
+                today.plusDays(1), today.plusDays(4));
+        mockMvc.perform(post("/api/bookings")
+                        .header("X-Client-Id", "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isOk());
+
+        BookingRequest overlapping = new BookingRequest("Kyle Reese", "kyle@reese.com", "PROP-OVERLAP",
+                today.plusDays(3), today.plusDays(6));
+        mockMvc.perform(post("/api/bookings")
+                        .header("X-Client-Id", "someone-else")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(overlapping)))
+                .andExpect(status().isBadRequest());
+    }
+}
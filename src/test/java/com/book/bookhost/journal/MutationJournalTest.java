@@ -0,0 +1,181 @@
+package com.book.bookhost.journal;
+
+import com.book.bookhost.event.BlockChangedEvent;
+import com.book.bookhost.event.BlockRuleChangedEvent;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
+import com.book.bookhost.model.Block;
+import com.book.bookhost.model.BlockRule;
+import com.book.bookhost.model.Booking;
+import com.book.bookhost.model.BookingStatus;
+import com.book.bookhost.model.RecurrenceFrequency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private MutationJournal journal;
+
+    private final LocalDate today = LocalDate.now();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        journal.close();
+    }
+
+    @Test
+    void replaysLatestStateAcrossSegmentsAndRestarts() throws Exception {
+        journal = open();
+        Booking booking = booking(1L, today.plusDays(1), today.plusDays(2));
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking));
+        for (int i = 0; i < 20; i++) {
+            booking.setEndDate(today.plusDays(3 + i));
+            booking.setVersion((long) i + 1);
+            journal.onBookingChanged(BookingChangedEvent.of(ChangeType.UPDATED, "prop1", booking));
+        }
+        Block block = block(2L);
+        journal.onBlockChanged(BlockChangedEvent.of(ChangeType.CREATED, null, block));
+        journal.onBlockChanged(BlockChangedEvent.of(ChangeType.DELETED, "prop1", block));
+        journal.close();
+
+        journal = open();
+        assertTrue(segments().size() > 2, "a 1KB segment cannot hold every record");
+        JournalState state = journal.readState();
+
+        assertEquals(23, state.recordsRead());
+        JournalRecord replayed = state.bookings().iterator().next();
+        assertEquals(1L, replayed.id());
+        assertEquals("Sarah Connor", replayed.guestName());
+        assertEquals(today.plusDays(22).toEpochDay(), replayed.endDay());
+        assertEquals(20, replayed.version());
+        assertTrue(state.blocks().isEmpty());
+    }
+
+    @Test
+    void keepsHighestBookingVersionWhateverTheAppendOrder() throws Exception {
+        journal = open();
+        Booking booking = booking(1L, today.plusDays(1), today.plusDays(2));
+        booking.setVersion(2L);
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.UPDATED, "prop1", booking));
+        booking.setEndDate(today.plusDays(5));
+        booking.setVersion(1L);
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.UPDATED, "prop1", booking));
+        journal.close();
+
+        journal = open();
+        JournalRecord replayed = journal.readState().bookings().iterator().next();
+        assertEquals(2, replayed.version());
+        assertEquals(today.plusDays(2).toEpochDay(), replayed.endDay());
+    }
+
+    @Test
+    void snapshotReplacesSealedSegments() throws Exception {
+        journal = open();
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking(1L, today.plusDays(1), today.plusDays(2))));
+        journal.onBlockChanged(BlockChangedEvent.of(ChangeType.CREATED, null, block(2L)));
+        journal.snapshot();
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking(3L, today.plusDays(5), today.plusDays(6))));
+        journal.close();
+
+        journal = open();
+        JournalState state = journal.readState();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        assertEquals(List.of(1L, 3L), state.bookings().stream().map(JournalRecord::id).toList());
+        assertEquals("Maintenance", state.blocks().iterator().next().reason());
+    }
+
+    @Test
+    void keepsBlockRulesUntilDeleted() throws Exception {
+        journal = open();
+        BlockRule cleaning = rule(4L, "Cleaning");
+        BlockRule painting = rule(5L, "Painting");
+        journal.onBlockRuleChanged(BlockRuleChangedEvent.of(ChangeType.CREATED, cleaning));
+        journal.onBlockRuleChanged(BlockRuleChangedEvent.of(ChangeType.CREATED, painting));
+        journal.snapshot();
+        journal.onBlockRuleChanged(BlockRuleChangedEvent.of(ChangeType.DELETED, painting));
+        journal.close();
+
+        journal = open();
+        JournalState state = journal.readState();
+
+        assertEquals(1, state.rules().size());
+        JournalRecord replayed = state.rules().iterator().next();
+        assertEquals(4L, replayed.id());
+        assertEquals(RecurrenceFrequency.WEEKLY, replayed.frequency());
+        assertEquals(2, replayed.interval());
+        assertEquals(today.plusDays(60).toEpochDay(), replayed.untilDay());
+        assertEquals(today.plusDays(1).toEpochDay(), replayed.startDay());
+        assertEquals("Cleaning", replayed.reason());
+        assertTrue(state.blocks().isEmpty());
+    }
+
+    @Test
+    void stopsAtTornRecord() throws Exception {
+        journal = open();
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking(1L, today.plusDays(1), today.plusDays(2))));
+        journal.onBookingChanged(BookingChangedEvent.of(ChangeType.CREATED, null, booking(2L, today.plusDays(3), today.plusDays(4))));
+        journal.close();
+
+        Path segment = segments().get(0);
+        int secondFrame = JournalRecord.of(BookingChangedEvent.of(ChangeType.CREATED, null,
+                booking(1L, today.plusDays(1), today.plusDays(2)))).toFrame().length;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), secondFrame + 20);
+        }
+
+        journal = open();
+        assertEquals(List.of(1L), journal.readState().bookings().stream().map(JournalRecord::id).toList());
+    }
+
+    private MutationJournal open() throws IOException {
+        return new MutationJournal(directory.toString(), DataSize.ofKilobytes(1), Duration.ofHours(1),
+                Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    private Booking booking(Long id, LocalDate start, LocalDate end) {
+        Booking booking = new Booking("Sarah Connor", "sarah@skynet.com", "prop1", start, end, BookingStatus.ACTIVE);
+        booking.setId(id);
+        return booking;
+    }
+
+    private BlockRule rule(Long id, String reason) {
+        BlockRule rule = new BlockRule("prop1", today.plusDays(1), today.plusDays(2), RecurrenceFrequency.WEEKLY, 2,
+                today.plusDays(60), reason);
+        rule.setId(id);
+        return rule;
+    }
+
+    private Block block(Long id) {
+        Block block = new Block("prop1", today.plusDays(10), today.plusDays(12), "Maintenance");
+        block.setId(id);
+        return block;
+    }
+}
@@ -1,14 +1,20 @@
 package com.book.bookhost.service;
 
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.cache.BlockChangeCounter;
+import com.book.bookhost.concurrency.PropertyLockManager;
 import com.book.bookhost.dto.BlockRequest;
 import com.book.bookhost.exception.NotFoundException;
 import com.book.bookhost.exception.ValidationException;
 import com.book.bookhost.model.*;
+import com.book.bookhost.repository.BlockRuleRepository;
 import com.book.bookhost.repository.BlockingRepository;
 import com.book.bookhost.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -21,10 +27,15 @@ class BlockingServiceTest {
     @Mock
     private BlockingRepository blockRepository;
 
+    @Mock
+    private BlockRuleRepository blockRuleRepository;
+
     @Mock
     private BookingRepository bookingRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private BlockingService blockingService;
 
     private final LocalDate today = LocalDate.now();
@@ -32,6 +43,9 @@ class BlockingServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        blockingService = new BlockingService(blockRepository,
+                new AvailabilityIndex(bookingRepository, blockRepository, blockRuleRepository, true, 100_000, new SimpleMeterRegistry()),
+                new PropertyLockManager(16, 1000), new BlockChangeCounter(1000), eventPublisher);
     }
 
 
@@ -39,7 +53,7 @@ class BlockingServiceTest {
     void createBlock_successful() {
         BlockRequest request = new BlockRequest("prop1", today.plusDays(1), today.plusDays(3), "Maintenance");
 
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
         when(blockRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Block block = blockingService.createBlock(request);
@@ -64,7 +78,7 @@ class BlockingServiceTest {
         Booking overlapping = new Booking("T-800", "t800@skynet.com", "prop1",
                 today.plusDays(3), today.plusDays(6), BookingStatus.ACTIVE);
 
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(List.of(overlapping));
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(List.of(overlapping));
 
         assertThrows(ValidationException.class, () -> blockingService.createBlock(request));
     }
@@ -73,16 +87,15 @@ class BlockingServiceTest {
     void createBlock_overlapWithCanceledBooking_allowed() {
         BlockRequest request = new BlockRequest("prop1", today.plusDays(1), today.plusDays(3), "Allowed");
 
-        Booking canceled = new Booking("T-800", "t800@skynet.com", "prop1",
-                today.plusDays(1), today.plusDays(3), BookingStatus.CANCELED);
-
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(List.of(canceled));
+        // canceled bookings are filtered out by the range query itself
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
         when(blockRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Block block = blockingService.createBlock(request);
 
         assertNotNull(block);
         assertEquals("Allowed", block.getReason());
+        verify(bookingRepository).findByPropertyIdAndStatusNotEndingOnOrAfter("prop1", BookingStatus.CANCELED, today);
     }
 
     @Test
@@ -93,10 +106,10 @@ class BlockingServiceTest {
         BlockRequest request = new BlockRequest("prop1", today.plusDays(3), today.plusDays(5), "Updated reason");
 
         when(blockRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
         when(blockRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
-        Block updated = blockingService.updateBlock(1L, request);
+        Block updated = blockingService.updateBlock(1L, request, null);
 
         assertEquals("Updated reason", updated.getReason());
         assertEquals(today.plusDays(5), updated.getEndDate());
@@ -108,7 +121,7 @@ class BlockingServiceTest {
         BlockRequest request = new BlockRequest("prop1", today.plusDays(1), today.plusDays(3), "X");
         when(blockRepository.findById(99L)).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> blockingService.updateBlock(99L, request));
+        assertThrows(NotFoundException.class, () -> blockingService.updateBlock(99L, request, null));
     }
 
     @Test
@@ -118,7 +131,7 @@ class BlockingServiceTest {
 
         BlockRequest request = new BlockRequest("prop1", today.plusDays(5), today.plusDays(1), "air conditioner");
 
-        assertThrows(ValidationException.class, () -> blockingService.updateBlock(1L, request));
+        assertThrows(ValidationException.class, () -> blockingService.updateBlock(1L, request, null));
     }
 
     @Test
@@ -129,11 +142,11 @@ class BlockingServiceTest {
         Booking overlapping = new Booking("T-800", "t800@skynet.com", "prop1",
                 today.plusDays(3), today.plusDays(5), BookingStatus.ACTIVE);
 
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(List.of(overlapping));
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(List.of(overlapping));
 
         BlockRequest request = new BlockRequest("prop1", today.plusDays(4), today.plusDays(6), "Overlap");
 
-        assertThrows(ValidationException.class, () -> blockingService.updateBlock(1L, request));
+        assertThrows(ValidationException.class, () -> blockingService.updateBlock(1L, request, null));
     }
 
 
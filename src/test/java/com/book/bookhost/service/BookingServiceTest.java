@@ -1,15 +1,27 @@
 package com.book.bookhost.service;
 
+import com.book.bookhost.availability.AvailabilityIndex;
+import com.book.bookhost.cache.BookingCache;
+import com.book.bookhost.concurrency.PropertyLockManager;
 import com.book.bookhost.dto.BookingRequest;
+import com.book.bookhost.dto.BookingSummary;
+import com.book.bookhost.dto.GuestBookingPage;
+import com.book.bookhost.event.BookingChangedEvent;
+import com.book.bookhost.event.ChangeType;
 import com.book.bookhost.exception.NotFoundException;
 import com.book.bookhost.exception.ValidationException;
 import com.book.bookhost.model.*;
+import com.book.bookhost.repository.BookingHistoryRepository;
 import com.book.bookhost.repository.BookingRepository;
+import com.book.bookhost.repository.BlockRuleRepository;
 import com.book.bookhost.repository.BlockingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -21,10 +33,20 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private BookingHistoryRepository bookingHistoryRepository;
+
     @Mock
     private BlockingRepository blockRepository;
 
-    @InjectMocks
+    @Mock
+    private BlockRuleRepository blockRuleRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private BookingCache bookingCache;
+
     private BookingService bookingService;
 
     private final LocalDate today = LocalDate.now();
@@ -32,6 +54,11 @@ class BookingServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        bookingCache = new BookingCache(100, Duration.ofMinutes(1), Duration.ofSeconds(5), new SimpleMeterRegistry());
+        bookingService = new BookingService(bookingRepository, bookingHistoryRepository,
+                new AvailabilityIndex(bookingRepository, blockRepository, blockRuleRepository, true, 100_000, new SimpleMeterRegistry()),
+                new PropertyLockManager(16, 1000),
+                bookingCache, eventPublisher);
     }
 
 
@@ -42,8 +69,8 @@ class BookingServiceTest {
                 today.plusDays(1), today.plusDays(3)
         );
 
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
-        when(blockRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
+        when(blockRepository.findByPropertyIdEndingOnOrAfter(eq("prop1"), any())).thenReturn(Collections.emptyList());
         when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Booking booking = bookingService.createBooking(request);
@@ -79,9 +106,9 @@ class BookingServiceTest {
                 today.plusDays(2), today.plusDays(4), BookingStatus.ACTIVE);
         existing.setId(100L);
 
-        when(bookingRepository.findByPropertyId("prop1"))
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any()))
                 .thenReturn(List.of(existing));
-        when(blockRepository.findByPropertyId("prop1"))
+        when(blockRepository.findByPropertyIdEndingOnOrAfter(eq("prop1"), any()))
                 .thenReturn(Collections.emptyList());
 
         BookingRequest request = new BookingRequest(
@@ -95,8 +122,8 @@ class BookingServiceTest {
     @Test
     void createBooking_overlapWithBlock_throwsException() {
         Block block = new Block("prop1", today.plusDays(1), today.plusDays(3), "Maintenance");
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
-        when(blockRepository.findByPropertyId("prop1")).thenReturn(List.of(block));
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
+        when(blockRepository.findByPropertyIdEndingOnOrAfter(eq("prop1"), any())).thenReturn(List.of(block));
 
         BookingRequest request = new BookingRequest(
                 "Sarah Connor", "sarah@skynet.com", "prop1",
@@ -118,11 +145,11 @@ class BookingServiceTest {
         );
 
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
-        when(blockRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
+        when(blockRepository.findByPropertyIdEndingOnOrAfter(eq("prop1"), any())).thenReturn(Collections.emptyList());
         when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
-        Booking updated = bookingService.updateBooking(1L, request);
+        Booking updated = bookingService.updateBooking(1L, request, null);
 
         assertEquals("Sara Connor", updated.getGuestName());
         assertEquals(request.endDate(), updated.getEndDate());
@@ -133,7 +160,7 @@ class BookingServiceTest {
     void updateBooking_notFound_throwsException() {
         when(bookingRepository.findById(99L)).thenReturn(Optional.empty());
         BookingRequest request = new BookingRequest("A", "b", "prop1", today.plusDays(1), today.plusDays(2));
-        assertThrows(NotFoundException.class, () -> bookingService.updateBooking(99L, request));
+        assertThrows(NotFoundException.class, () -> bookingService.updateBooking(99L, request, null));
     }
 
     @Test
@@ -165,8 +192,8 @@ class BookingServiceTest {
         BookingRequest req = new BookingRequest("Sarah Connor", "sarah@skynet.com", "prop1", today.plusDays(4), today.plusDays(6));
 
         when(bookingRepository.findById(5L)).thenReturn(Optional.of(canceled));
-        when(bookingRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
-        when(blockRepository.findByPropertyId("prop1")).thenReturn(Collections.emptyList());
+        when(bookingRepository.findByPropertyIdAndStatusNotEndingOnOrAfter(eq("prop1"), eq(BookingStatus.CANCELED), any())).thenReturn(Collections.emptyList());
+        when(blockRepository.findByPropertyIdEndingOnOrAfter(eq("prop1"), any())).thenReturn(Collections.emptyList());
         when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Booking rebooked = bookingService.rebook(5L, req);
@@ -199,6 +226,34 @@ class BookingServiceTest {
         assertEquals("Sarah Connor", result.getGuestName());
     }
 
+    @Test
+    void getBooking_servedFromCacheUntilBookingChanges() {
+        Booking booking = new Booking("Sarah Connor", "sarah@skynet.com", "prop1", today.plusDays(1), today.plusDays(3), BookingStatus.ACTIVE);
+        booking.setId(1L);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+
+        bookingService.getBooking(1L).setStatus(BookingStatus.CANCELED);
+        // a caller changing its copy changes neither the cache nor the next caller's booking
+        assertEquals(BookingStatus.ACTIVE, bookingService.getBooking(1L).getStatus());
+        verify(bookingRepository, times(1)).findById(1L);
+
+        bookingCache.onBookingChanged(BookingChangedEvent.of(ChangeType.CANCELED, "prop1", booking));
+        bookingService.getBooking(1L);
+        verify(bookingRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getBooking_fallsBackToHistoryForArchivedBooking() {
+        Booking booking = new Booking("Sarah Connor", "sarah@skynet.com", "prop1", today.minusDays(9), today.minusDays(7), BookingStatus.ACTIVE);
+        booking.setId(1L);
+        BookingHistory archived = mock(BookingHistory.class);
+        when(archived.toBooking()).thenReturn(booking);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bookingHistoryRepository.findById(1L)).thenReturn(Optional.of(archived));
+
+        assertEquals(today.minusDays(7), bookingService.getBooking(1L).getEndDate());
+    }
+
     @Test
     void getBooking_notFound_throwsException() {
         when(bookingRepository.findById(1L)).thenReturn(Optional.empty());
@@ -264,5 +319,23 @@ class BookingServiceTest {
         verify(bookingRepository).getActiveBookingByGuestName("Sarah Connor");
     }
 
+    @Test
+    void getActiveBookingPageByGuestName_returnsCursorWhenMoreRowsExist() {
+        List<BookingSummary> rows = List.of(
+                new BookingSummary(1L, "John Connor", "john@skynet.com", "prop1", today.plusDays(1), today.plusDays(2), BookingStatus.ACTIVE),
+                new BookingSummary(4L, "John Connor", "john@skynet.com", "prop2", today.plusDays(3), today.plusDays(4), BookingStatus.ACTIVE),
+                new BookingSummary(9L, "John Connor", "john@skynet.com", "prop3", today.plusDays(5), today.plusDays(6), BookingStatus.ACTIVE));
+        when(bookingRepository.getActiveBookingSummariesByGuestName("John Connor", null, 3)).thenReturn(rows);
+
+        GuestBookingPage page = bookingService.getActiveBookingPageByGuestName("John Connor", null, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(4L, page.nextCursor());
+    }
+
+    @Test
+    void getActiveBookingPageByGuestName_invalidSize_throwsException() {
+        assertThrows(ValidationException.class, () -> bookingService.getActiveBookingPageByGuestName("John Connor", null, 0));
+    }
 
 }